@@ -0,0 +1,94 @@
+package de.cofinpro.account.breach;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lookup latency of the breach-check engine on a generated corpus: hits (Bloom filter positive + binary search in
+ * the memory-mapped file), misses with Bloom filter fast path and misses searched in the mapped file directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BreachCheckBenchmark {
+
+    private static final int LOOKUP_SAMPLES = 1024;
+
+    @Param({"1000000", "10000000"})
+    public int corpusSize;
+
+    private Path workDirectory;
+    private BreachedPasswordChecker checker;
+    private BreachCorpus corpus;
+    private final String[] breachedPasswords = new String[LOOKUP_SAMPLES];
+    private final String[] unknownPasswords = new String[LOOKUP_SAMPLES];
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workDirectory = Files.createTempDirectory("breach-benchmark");
+        Path passwordList = workDirectory.resolve("passwords.txt");
+        Path corpusFile = workDirectory.resolve("corpus.bin");
+        try (BufferedWriter writer = Files.newBufferedWriter(passwordList)) {
+            for (int i = 0; i < corpusSize; i++) {
+                writer.write("breached-" + i);
+                writer.newLine();
+            }
+        }
+        new BreachCorpusBuilder(1_000_000).build(passwordList, corpusFile);
+        for (int i = 0; i < LOOKUP_SAMPLES; i++) {
+            breachedPasswords[i] = "breached-" + ThreadLocalRandom.current().nextInt(corpusSize);
+            unknownPasswords[i] = "unknown-" + ThreadLocalRandom.current().nextLong();
+        }
+        checker = new BreachedPasswordChecker(corpusFile.toString(), 0.01, Duration.ofDays(1));
+        checker.reloadIfModified();
+        corpus = BreachCorpus.load(corpusFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        checker.destroy();
+        try (var files = Files.list(workDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDirectory);
+    }
+
+    @Benchmark
+    public boolean breachedPasswordHit() {
+        return checker.isBreached(breachedPasswords[nextSample()]);
+    }
+
+    @Benchmark
+    public boolean unknownPasswordBloomFiltered() {
+        return checker.isBreached(unknownPasswords[nextSample()]);
+    }
+
+    @Benchmark
+    public boolean unknownPasswordMappedFileOnly() {
+        return corpus.containsPassword(unknownPasswords[nextSample()]);
+    }
+
+    private int nextSample() {
+        sample = (sample + 1) & (LOOKUP_SAMPLES - 1);
+        return sample;
+    }
+}
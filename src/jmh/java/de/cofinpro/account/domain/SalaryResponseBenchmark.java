@@ -0,0 +1,65 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.Salary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * rendering of an employee's salary history into SalaryResponses: the former Formatter based rendering of salary
+ * and period (String.formatted, Month.getDisplayName per row) vs. the month name table and plain concatenation of
+ * SalaryResponse. The gc profiler (configured in the jmh block) reports the allocation per operation
+ * (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SalaryResponseBenchmark {
+
+    @Param({"120"})
+    public int months;
+
+    private final Login login = Login.builder().name("Hans").lastname("Wurst").build();
+    private List<Salary> history;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        history = IntStream.range(0, months)
+                .mapToObj(i -> Salary.builder().period(2010 * 12 + 1 + i)
+                        .monthlySalary(ThreadLocalRandom.current().nextLong(1_000_000)).build())
+                .toList();
+    }
+
+    @Benchmark
+    public List<SalaryResponse> formatterRendering() {
+        return history.stream()
+                .map(salary -> new SalaryResponse(login.getName(), login.getLastname(),
+                        Month.of((salary.getPeriod() - 1) % 12 + 1).getDisplayName(TextStyle.FULL, Locale.US)
+                                + "-" + (salary.getPeriod() - 1) / 12,
+                        "%d dollar(s) %02d cent(s)".formatted(salary.getMonthlySalary() / 100,
+                                salary.getMonthlySalary() % 100)))
+                .toList();
+    }
+
+    @Benchmark
+    public List<SalaryResponse> precomputedRendering() {
+        return history.stream()
+                .map(salary -> SalaryResponse.fromLoginAndSalary(salary, login))
+                .toList();
+    }
+}
@@ -0,0 +1,126 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryBatchRepositoryImpl;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.NO_SUCH_EMPLOYEE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORDMSG_START;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORD_ALREADY_EXISTS_ERRORMSG;
+
+/**
+ * validation of salary uploads of 1k, 10k and 100k records against an in-memory H2 with 1000 employees: the former
+ * two lookup queries per record (through an unbounded flatMap) vs. the chunked IN queries of SalaryUploadValidator
+ * (since uploads are inserted first, these run on the error path only).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SalaryUploadValidationBenchmark {
+
+    private static final int EMPLOYEES = 1000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    @Param({"1000", "10000", "100000"})
+    public int records;
+
+    private ConnectionPool connectionPool;
+    private DatabaseClient databaseClient;
+    private SalaryUploadValidator uploadValidator;
+    private List<SalaryRecord> upload;
+    private List<Tuple2<Long, SalaryRecord>> indexedUpload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get("r2dbc:h2:mem:///upload-benchmark;DB_CLOSE_DELAY=-1"))
+                .maxSize(8)
+                .build());
+        databaseClient = DatabaseClient.create(connectionPool);
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            uploadValidator = new SalaryUploadValidator(new SalaryBatchRepositoryImpl(databaseClient),
+                    new SpringValidatorAdapter(validatorFactory.getValidator()), 1000);
+        }
+        Flux.just("DROP TABLE IF EXISTS SALARY", "DROP TABLE IF EXISTS LOGIN", """
+                CREATE TABLE LOGIN (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL, name VARCHAR (64),
+                    lastname VARCHAR (64), email VARCHAR_IGNORECASE (64) UNIQUE NOT NULL,
+                    password VARCHAR (128) NOT NULL, account_locked BOOL NOT NULL, failed_logins SMALLINT)""", """
+                CREATE TABLE SALARY (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, FOREIGN KEY(email) REFERENCES LOGIN(email),
+                    period INT NOT NULL, salary BIGINT NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL)""")
+                .concatMap(ddl -> databaseClient.sql(ddl).then())
+                .then().block(TIMEOUT);
+        Flux.range(0, EMPLOYEES)
+                .concatMap(i -> databaseClient.sql("""
+                                INSERT INTO LOGIN (name, lastname, email, password, account_locked, failed_logins)
+                                VALUES ('Hans', 'Wurst', $1, '{bcrypt}hash', FALSE, 0)""")
+                        .bind(0, email(i)).then()
+                        .then(databaseClient.sql("INSERT INTO SALARY (email, period, salary) VALUES ($1, 24241, 1000)")
+                                .bind(0, email(i)).then()))
+                .then().block(TIMEOUT);
+        // distinct employee and period combinations - none of them persisted yet
+        upload = IntStream.range(0, records)
+                .mapToObj(i -> new SalaryRecord(email(i % EMPLOYEES),
+                        "%02d-%d".formatted(i / EMPLOYEES % 12 + 1, 2021 + i / EMPLOYEES / 12), 1000))
+                .toList();
+        indexedUpload = IntStream.range(0, records).mapToObj(i -> Tuples.of((long) i, upload.get(i))).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.dispose();
+    }
+
+    @Benchmark
+    public List<String> perRecordQueries() {
+        return Flux.fromIterable(upload).index()
+                .flatMap(tuple -> databaseClient.sql("SELECT * FROM LOGIN WHERE email = $1")
+                        .bind(0, tuple.getT2().employee()).fetch().first().hasElement()
+                        .flatMap(hasUser -> Boolean.FALSE.equals(hasUser)
+                                ? Mono.just(RECORDMSG_START.formatted(tuple.getT1(), NO_SUCH_EMPLOYEE_ERRORMSG))
+                                : databaseClient.sql("SELECT * FROM SALARY WHERE email = $1 AND period = $2")
+                                        .bind(0, tuple.getT2().employee())
+                                        .bind(1, Salary.periodIndex(tuple.getT2().period()))
+                                        .fetch().first().hasElement()
+                                        .map(hasSalary -> Boolean.TRUE.equals(hasSalary)
+                                                ? RECORDMSG_START.formatted(tuple.getT1(), RECORD_ALREADY_EXISTS_ERRORMSG)
+                                                : "")))
+                .collectList()
+                .block(TIMEOUT);
+    }
+
+    @Benchmark
+    public List<String> chunkedInQueries() {
+        return uploadValidator.diagnose(indexedUpload).block(TIMEOUT);
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@acme.com";
+    }
+}
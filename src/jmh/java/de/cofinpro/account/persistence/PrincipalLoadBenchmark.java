@@ -0,0 +1,100 @@
+package de.cofinpro.account.persistence;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * principal load of a Login with roles from an in-memory H2: the former approach zipping the LOGIN query with the
+ * LOGIN_ROLES query (as the derived repository methods do) vs. the single join query of LoginWithRolesRepositoryImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrincipalLoadBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Param({"1000"})
+    public int users;
+
+    private ConnectionPool connectionPool;
+    private R2dbcEntityTemplate entityTemplate;
+    private LoginWithRolesRepositoryImpl loginWithRolesRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get("r2dbc:h2:mem:///principal-benchmark;DB_CLOSE_DELAY=-1"))
+                .maxSize(8)
+                .build());
+        DatabaseClient databaseClient = DatabaseClient.create(connectionPool);
+        entityTemplate = new R2dbcEntityTemplate(connectionPool);
+        loginWithRolesRepository = new LoginWithRolesRepositoryImpl(databaseClient);
+        Flux.just("""
+                CREATE TABLE LOGIN (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL, name VARCHAR (64),
+                    lastname VARCHAR (64), email VARCHAR_IGNORECASE (64) UNIQUE NOT NULL,
+                    password VARCHAR (128) NOT NULL, account_locked BOOL NOT NULL, failed_logins SMALLINT)""", """
+                CREATE TABLE LOGIN_ROLES (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, user_role VARCHAR_IGNORECASE (20) NOT NULL)""")
+                .concatMap(ddl -> databaseClient.sql(ddl).then())
+                .then().block(TIMEOUT);
+        Flux.range(0, users)
+                .concatMap(i -> databaseClient.sql("""
+                                INSERT INTO LOGIN (name, lastname, email, password, account_locked, failed_logins)
+                                VALUES ('Hans', 'Wurst', $1, $2, FALSE, 0)""")
+                        .bind(0, email(i)).bind(1, "{bcrypt}hash").then()
+                        .then(databaseClient.sql("INSERT INTO LOGIN_ROLES (email, user_role) VALUES ($1, 'ROLE_USER')")
+                                .bind(0, email(i)).then())
+                        .then(databaseClient.sql("INSERT INTO LOGIN_ROLES (email, user_role) VALUES ($1, 'ROLE_AUDITOR')")
+                                .bind(0, email(i)).then()))
+                .then().block(Duration.ofMinutes(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.dispose();
+    }
+
+    @Benchmark
+    public Login zipLoginAndRolesQueries() {
+        String email = randomEmail();
+        return entityTemplate.select(Login.class).matching(query(where("email").is(email))).one()
+                .zipWith(entityTemplate.select(LoginRole.class).matching(query(where("email").is(email))).all()
+                        .map(LoginRole::getRole).collectList(), Login::setRoles)
+                .block(TIMEOUT);
+    }
+
+    @Benchmark
+    public Login singleJoinQuery() {
+        return loginWithRolesRepository.findWithRolesByEmail(randomEmail()).block(TIMEOUT);
+    }
+
+    private String randomEmail() {
+        return email(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@acme.com";
+    }
+}
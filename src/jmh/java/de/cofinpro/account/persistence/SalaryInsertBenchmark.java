@@ -0,0 +1,117 @@
+package de.cofinpro.account.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * insert of 10k salaries into an in-memory H2: one INSERT per entity with generated key retrieval (the path of
+ * SalaryReactiveRepository.saveAll) vs. the multi-row INSERT batches of SalaryBulkInserter in several batch sizes.
+ * The batch size is a parameter of the BulkInsert state only - so the per entity insert runs once, not per size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SalaryInsertBenchmark {
+
+    private static final int EMPLOYEES = 100;
+    private static final int SALARIES = 10_000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private ConnectionPool connectionPool;
+    private DatabaseClient databaseClient;
+    private R2dbcEntityTemplate entityTemplate;
+    private List<Salary> salaries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get("r2dbc:h2:mem:///insert-benchmark;DB_CLOSE_DELAY=-1"))
+                .maxSize(8)
+                .build());
+        databaseClient = DatabaseClient.create(connectionPool);
+        entityTemplate = new R2dbcEntityTemplate(connectionPool);
+        Flux.just("DROP TABLE IF EXISTS SALARY", "DROP TABLE IF EXISTS LOGIN", """
+                CREATE TABLE LOGIN (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL, name VARCHAR (64),
+                    lastname VARCHAR (64), email VARCHAR_IGNORECASE (64) UNIQUE NOT NULL,
+                    password VARCHAR (128) NOT NULL, account_locked BOOL NOT NULL, failed_logins SMALLINT)""", """
+                CREATE TABLE SALARY (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, FOREIGN KEY(email) REFERENCES LOGIN(email),
+                    period INT NOT NULL, salary BIGINT NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL)""")
+                .concatMap(ddl -> databaseClient.sql(ddl).then())
+                .then().block(TIMEOUT);
+        Flux.range(0, EMPLOYEES)
+                .concatMap(i -> databaseClient.sql("""
+                                INSERT INTO LOGIN (name, lastname, email, password, account_locked, failed_logins)
+                                VALUES ('Hans', 'Wurst', $1, '{bcrypt}hash', FALSE, 0)""")
+                        .bind(0, "user" + i + "@acme.com").then())
+                .then().block(TIMEOUT);
+        salaries = IntStream.range(0, SALARIES)
+                .mapToObj(i -> Salary.builder().email("user" + i % EMPLOYEES + "@acme.com")
+                        .period((2000 + i / EMPLOYEES / 12) * 12 + i / EMPLOYEES % 12 + 1)
+                        .monthlySalary(1000).build())
+                .toList();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearSalaries() {
+        databaseClient.sql("DELETE FROM SALARY").then().block(TIMEOUT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.dispose();
+    }
+
+    @Benchmark
+    public Long insertPerEntity() {
+        return Flux.fromIterable(salaries)
+                .map(salary -> Salary.builder().email(salary.getEmail()).period(salary.getPeriod())
+                        .monthlySalary(salary.getMonthlySalary()).build())
+                .concatMap(entityTemplate::insert)
+                .count()
+                .block(TIMEOUT);
+    }
+
+    @Benchmark
+    public Long multiRowInsertBatches(BulkInsert bulkInsert) {
+        return bulkInsert.bulkInserter.insertAll(salaries).block(TIMEOUT);
+    }
+
+    /**
+     * SalaryBulkInserter of the benchmarked batch size on the benchmark's database.
+     */
+    @State(Scope.Benchmark)
+    public static class BulkInsert {
+
+        @Param({"100", "500", "1000"})
+        public int batchSize;
+
+        private SalaryBulkInserter bulkInserter;
+
+        @Setup(Level.Trial)
+        public void setup(SalaryInsertBenchmark benchmark) {
+            bulkInserter = new SalaryBulkInserter(benchmark.databaseClient, new SimpleMeterRegistry(), batchSize);
+        }
+    }
+}
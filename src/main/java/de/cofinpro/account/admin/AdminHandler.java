@@ -4,14 +4,15 @@ import de.cofinpro.account.audit.AuditLogger;
 import de.cofinpro.account.authentication.SignupResponse;
 import de.cofinpro.account.domain.StatusResponse;
 import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.LoginChangedEvent;
 import de.cofinpro.account.persistence.LoginReactiveRepository;
 import de.cofinpro.account.persistence.LoginRole;
 import de.cofinpro.account.persistence.LoginRoleReactiveRepository;
 import de.cofinpro.account.persistence.Role;
 import de.cofinpro.account.persistence.SalaryReactiveRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BeanPropertyBindingResult;
@@ -46,6 +47,7 @@ public class AdminHandler {
     private final AuditLogger auditLogger;
     private final List<Role> systemRoles;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public AdminHandler(LoginReactiveRepository userRepository,
@@ -53,22 +55,22 @@ public class AdminHandler {
                         SalaryReactiveRepository salaryRepository,
                         AuditLogger auditLogger,
                         List<Role> systemRoles,
-                        Validator validator) {
+                        Validator validator,
+                        ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.salaryRepository = salaryRepository;
         this.auditLogger = auditLogger;
         this.systemRoles = systemRoles;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * GET /api/admin/user endpoint to display all users ascending by id with their roles, which are zipped to the Login.
+     * GET /api/admin/user endpoint to display all users ascending by id with their roles - loaded in one query.
      */
     public Mono<ServerResponse> displayUsers(ServerRequest ignoredServerRequest) {
-        return ok().body(userRepository.findAll(Sort.by(Sort.Direction.ASC, "id"))
-                        .flatMap(login -> Mono.just(login)
-                                .zipWith(roleRepository.findRolesByEmail(login.getEmail()), Login::setRoles))
+        return ok().body(userRepository.findAllWithRoles()
                         .map(Login::toSignupResponse), SignupResponse.class);
     }
 
@@ -101,6 +103,7 @@ public class AdminHandler {
                         return roleRepository.deleteAllByEmail(email)
                                 .then(salaryRepository.deleteAllByEmail(email))
                                 .then(userRepository.deleteByEmail(email))
+                                .then(publishLoginChanged(email))
                                 .then(principal)
                                 .flatMap(admin -> auditLogger.logDeleteUser(admin.getName(), email))
                                 .then(Mono.just(new UserDeletedResponse(email, DELETED_SUCCESSFULLY)));
@@ -165,6 +168,7 @@ public class AdminHandler {
             } else {
                 return userRepository
                         .toggleLock(lockToggleRequest.user(), lockRequested)
+                        .then(publishLoginChanged(lockToggleRequest.user()))
                         .then(principal)
                         .flatMap(admin -> auditLogger.logToggleUserLock(admin.getName(), lockToggleRequest))
                         .then(Mono.just(new StatusResponse("User %s %sed!".formatted(lockToggleRequest.user(),
@@ -196,7 +200,8 @@ public class AdminHandler {
                 .flatMap(requestedRole -> roleToggleRequest.operation().equalsIgnoreCase("remove")
                         ? roleRepository.deleteByEmailAndRole(roleToggleRequest.user(), requestedRole)
                         : roleRepository.save(LoginRole.builder().email(roleToggleRequest.user()).role(requestedRole).build())
-                ).then(principal)
+                ).then(publishLoginChanged(roleToggleRequest.user()))
+                .then(principal)
                 .flatMap(admin -> auditLogger.logToggleRole(admin.getName(), roleToggleRequest))
                 .then(updatedUserResponse(roleToggleRequest.user()));
     }
@@ -207,12 +212,18 @@ public class AdminHandler {
      * @param email user email key
      */
     private Mono<SignupResponse> updatedUserResponse(String email) {
-        return userRepository.findByEmail(email)
-                .flatMap(login -> Mono.just(login)
-                        .zipWith(roleRepository.findRolesByEmail(login.getEmail()), Login::setRoles))
+        return userRepository.findWithRolesByEmail(email)
                 .map(Login::toSignupResponse);
     }
 
+    /**
+     * inform all listeners (e.g. the principal cache), that the user's login data has been changed in the database.
+     * @param email user email key
+     */
+    private Mono<Void> publishLoginChanged(String email) {
+        return Mono.fromRunnable(() -> eventPublisher.publishEvent(new LoginChangedEvent(email)));
+    }
+
     /**
      * check the rules applied by the specification on which role grants or revokes are allowed and possible.
      * @param userRoles the user's roles BEFORE the PUT from the database.
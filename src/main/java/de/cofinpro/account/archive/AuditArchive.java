@@ -0,0 +1,246 @@
+package de.cofinpro.account.archive;
+
+import de.cofinpro.account.persistence.AuditEventQuery;
+import de.cofinpro.account.persistence.SecurityEvent;
+import de.cofinpro.account.persistence.SecurityEventReactiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * archive of closed audit periods: every account.audit.archive.interval, all SecurityEvents of closed days or months
+ * (account.audit.archive.segment) are moved out of the AUDIT table into immutable AuditSegment files in
+ * account.audit.archive.directory - so the hot table only holds the current period. Archiving is off, if no
+ * directory is configured.
+ * The archived ids are the paging cursor, so they must stay unique: on start (after the schema initialization, which
+ * may recreate AUDIT, and before the web server accepts requests) the AUDIT ids are restarted above the last
+ * archived id - the archive task is started only afterwards.
+ * findPage merges archived and database events transparently into one id ordered page.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@Slf4j
+public class AuditArchive implements SmartInitializingSingleton, DisposableBean {
+
+    /**
+     * period of the audit events archived into one segment file.
+     */
+    public enum SegmentPeriod {
+        DAY, MONTH;
+
+        LocalDate start(LocalDate date) {
+            return this == DAY ? date : date.with(TemporalAdjusters.firstDayOfMonth());
+        }
+
+        LocalDate next(LocalDate start) {
+            return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+        }
+
+        String key(LocalDate start) {
+            return this == DAY ? start.toString() : start.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        }
+    }
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // DDL takes no bind markers - the value is formatted as long
+    private static final String RESTART_IDS_DDL = "ALTER TABLE AUDIT ALTER COLUMN id RESTART WITH %d";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final SecurityEventReactiveRepository auditRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final Path directory;
+    private final SegmentPeriod segmentPeriod;
+    private final Duration interval;
+    private final AtomicReference<List<AuditSegment>> segments = new AtomicReference<>(List.of());
+    private Disposable archiveTask;
+
+    public AuditArchive(SecurityEventReactiveRepository auditRepository, R2dbcEntityTemplate entityTemplate,
+                        @Value("${account.audit.archive.directory:}") String directory,
+                        @Value("${account.audit.archive.segment:MONTH}") SegmentPeriod segmentPeriod,
+                        @Value("${account.audit.archive.interval:1h}") Duration interval) throws IOException {
+        this.auditRepository = auditRepository;
+        this.entityTemplate = entityTemplate;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.segmentPeriod = segmentPeriod;
+        this.interval = interval;
+        if (this.directory != null) {
+            Files.createDirectories(this.directory);
+            loadSegments();
+        }
+    }
+
+    /**
+     * restart the AUDIT ids behind the archive and start the archive task - called once all singletons (and the
+     * schema initialization) are done, before the web server is started.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (directory == null) {
+            return;
+        }
+        restartIdsAboveArchive().block(STARTUP_TIMEOUT);
+        archiveTask = Flux.interval(interval, interval, Schedulers.boundedElastic())
+                .concatMap(tick -> archiveClosedPeriods()
+                        .onErrorResume(error -> {
+                            log.error("archiving audit events failed", error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /**
+     * page of audit events from archive and database merged ascending by id.
+     * @param query cursor, limit and filters
+     */
+    public Flux<SecurityEvent> findPage(AuditEventQuery query) {
+        Flux<SecurityEvent> live = auditRepository.findPage(query);
+        if (segments.get().isEmpty()) {
+            return live;
+        }
+        return Flux.mergeComparing(Comparator.comparingLong(SecurityEvent::getId), findArchived(query), live)
+                .distinctUntilChanged(SecurityEvent::getId)
+                .take(query.limit());
+    }
+
+    private Flux<SecurityEvent> findArchived(AuditEventQuery query) {
+        return Flux.defer(() -> {
+            List<SecurityEvent> found = new ArrayList<>();
+            for (AuditSegment segment : segments.get()) {
+                found.addAll(segment.find(query));
+            }
+            found.sort(Comparator.comparingLong(SecurityEvent::getId));
+            return Flux.fromIterable(found).take(query.limit());
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * archive the closed periods one by one, starting with the oldest event in the database.
+     */
+    Mono<Void> archiveClosedPeriods() {
+        return entityTemplate.getDatabaseClient().sql("SELECT MIN(date) AS oldest FROM AUDIT")
+                .map(row -> Optional.ofNullable(row.get("oldest", LocalDate.class)))
+                .one()
+                .flatMap(Mono::justOrEmpty)
+                .map(segmentPeriod::start)
+                .filter(start -> !segmentPeriod.next(start).isAfter(LocalDate.now()))
+                .flatMap(start -> archivePeriod(start).then(Mono.defer(this::archiveClosedPeriods)));
+    }
+
+    /**
+     * write all events of the period (merged with an existing segment of the period, if a former run was interrupted)
+     * into the period's segment and delete them from the database afterwards.
+     */
+    private Mono<Void> archivePeriod(LocalDate start) {
+        LocalDate end = segmentPeriod.next(start);
+        Path target = directory.resolve("audit-" + segmentPeriod.key(start) + SEGMENT_SUFFIX).toAbsolutePath();
+        Flux<SecurityEvent> databaseEvents = entityTemplate.select(SecurityEvent.class)
+                .matching(query(where("date").greaterThanOrEquals(start).and("date").lessThan(end))
+                        .sort(Sort.by(Sort.Direction.ASC, "id")))
+                .all();
+        Optional<AuditSegment> existing = segments.get().stream()
+                .filter(segment -> segment.path().equals(target))
+                .findFirst();
+        Flux<SecurityEvent> periodEvents = existing.isEmpty() ? databaseEvents
+                : Flux.mergeComparing(Comparator.comparingLong(SecurityEvent::getId),
+                                Flux.fromStream(existing.get()::stream), databaseEvents)
+                        .distinctUntilChanged(SecurityEvent::getId);
+        return Mono.using(() -> new AuditSegmentWriter(target),
+                        writer -> periodEvents.publishOn(Schedulers.boundedElastic())
+                                .doOnNext(event -> append(writer, event))
+                                .then(Mono.fromCallable(writer::finish)),
+                        AuditSegmentWriter::close)
+                .flatMap(count -> Mono.fromCallable(() -> AuditSegment.open(target))
+                        .doOnNext(segment -> replaceSegment(segment, count))
+                        .flatMap(segment -> entityTemplate.getDatabaseClient()
+                                .sql("DELETE FROM AUDIT WHERE date >= $1 AND date < $2 AND id <= $3")
+                                .bind(0, start).bind(1, end).bind(2, segment.lastId())
+                                .fetch().rowsUpdated()))
+                .doOnNext(deleted -> log.info("{} audit events archived to {}", deleted, target))
+                .then();
+    }
+
+    private static void append(AuditSegmentWriter writer, SecurityEvent event) {
+        try {
+            writer.append(event);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void replaceSegment(AuditSegment segment, int count) {
+        log.debug("audit segment {} written with {} events", segment.path(), count);
+        segments.updateAndGet(current -> Stream.concat(
+                        current.stream().filter(other -> !other.path().equals(segment.path())), Stream.of(segment))
+                .sorted(Comparator.comparingLong(AuditSegment::firstId))
+                .toList());
+    }
+
+    private void loadSegments() throws IOException {
+        List<AuditSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                loaded.add(AuditSegment.open(file.toAbsolutePath()));
+            }
+        }
+        loaded.sort(Comparator.comparingLong(AuditSegment::firstId));
+        segments.set(List.copyOf(loaded));
+        log.info("{} audit archive segments loaded from {}", loaded.size(), directory);
+    }
+
+    /**
+     * id watermark: new events must never get an id of an archived event - the AUDIT identity restarts behind the
+     * archive, if the table holds no higher id (e.g. it was recreated).
+     */
+    Mono<Void> restartIdsAboveArchive() {
+        long lastArchivedId = segments.get().stream().mapToLong(AuditSegment::lastId).max().orElse(0);
+        if (lastArchivedId == 0) {
+            return Mono.empty();
+        }
+        DatabaseClient databaseClient = entityTemplate.getDatabaseClient();
+        return databaseClient.sql("SELECT COALESCE(MAX(id), 0) AS last_id FROM AUDIT")
+                .map(row -> row.get("last_id", Long.class))
+                .one()
+                .filter(lastId -> lastId < lastArchivedId)
+                .flatMap(lastId -> databaseClient
+                        .sql(RESTART_IDS_DDL.formatted(lastArchivedId + 1))
+                        .then()
+                        .doOnSuccess(done -> log.info("AUDIT ids restarted behind the last archived id {}",
+                                lastArchivedId)))
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        if (archiveTask != null) {
+            archiveTask.dispose();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package de.cofinpro.account.archive;
+
+import de.cofinpro.account.persistence.AuditEventQuery;
+import de.cofinpro.account.persistence.SecurityEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * read-only, memory-mapped view on an immutable audit archive segment, as written by the AuditSegmentWriter.
+ * File format: 48 byte header (magic "AUDS", int version, int record count, int index entries, long first id,
+ * long last id, int min and max epoch day, long index offset), the records ascending by id (long id, int epoch
+ * day and the UTF-8 strings action, subject, object, path - each prefixed by its int byte length, -1 for null)
+ * and a sparse index with one entry per block of INDEX_INTERVAL records (long first id, long offset, int min and
+ * max epoch day of the block).
+ * A query seeks its start block by binary search on the ids and skips blocks outside its date range.
+ * Instances are immutable and thread-safe.
+ */
+public class AuditSegment {
+
+    static final int MAGIC = 0x41554453;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 48;
+    static final int INDEX_ENTRY_SIZE = 24;
+    static final int INDEX_INTERVAL = 64;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int recordCount;
+    private final int indexEntries;
+    private final long firstId;
+    private final long lastId;
+    private final LocalDate minDate;
+    private final LocalDate maxDate;
+    private final int indexOffset;
+
+    private AuditSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an audit segment file: " + path);
+        }
+        this.recordCount = buffer.getInt(8);
+        this.indexEntries = buffer.getInt(12);
+        this.firstId = buffer.getLong(16);
+        this.lastId = buffer.getLong(24);
+        this.minDate = LocalDate.ofEpochDay(buffer.getInt(32));
+        this.maxDate = LocalDate.ofEpochDay(buffer.getInt(36));
+        long offset = buffer.getLong(40);
+        if (offset < HEADER_SIZE || offset + (long) indexEntries * INDEX_ENTRY_SIZE != buffer.limit()) {
+            throw new IOException("Corrupt audit segment file (index mismatch): " + path);
+        }
+        this.indexOffset = (int) offset;
+    }
+
+    /**
+     * memory-map the given segment file.
+     * @throws IOException if the file cannot be read, is no valid segment or exceeds 2 GB
+     */
+    public static AuditSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Audit segment exceeds 2 GB - use shorter segment periods: " + path);
+            }
+            return new AuditSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * the events of this segment matching the query's cursor and filters - ascending by id.
+     * @param query cursor and filters - the limit of the query is applied
+     */
+    public List<SecurityEvent> find(AuditEventQuery query) {
+        List<SecurityEvent> found = new ArrayList<>();
+        if (lastId <= query.afterId() || !overlaps(minDate, maxDate, query)) {
+            return found;
+        }
+        ByteBuffer records = buffer.duplicate();
+        for (int block = startBlock(query.afterId()); block < indexEntries && found.size() < query.limit(); block++) {
+            int entry = indexOffset + block * INDEX_ENTRY_SIZE;
+            if (!overlaps(LocalDate.ofEpochDay(buffer.getInt(entry + 16)),
+                    LocalDate.ofEpochDay(buffer.getInt(entry + 20)), query)) {
+                continue;
+            }
+            int end = block + 1 < indexEntries ? (int) buffer.getLong(entry + INDEX_ENTRY_SIZE + 8) : indexOffset;
+            records.position((int) buffer.getLong(entry + 8));
+            while (records.position() < end && found.size() < query.limit()) {
+                SecurityEvent event = read(records);
+                if (event.getId() > query.afterId() && matches(event, query)) {
+                    found.add(event);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * all events of the segment ascending by id - decoded lazily.
+     */
+    public Stream<SecurityEvent> stream() {
+        ByteBuffer records = buffer.duplicate().position(HEADER_SIZE);
+        Iterator<SecurityEvent> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return records.position() < indexOffset;
+            }
+
+            @Override
+            public SecurityEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return read(records);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(iterator, recordCount,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * last block, whose first id is not greater than afterId + 1 - all earlier blocks hold smaller ids only.
+     */
+    private int startBlock(long afterId) {
+        int low = 0;
+        int high = indexEntries - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (buffer.getLong(indexOffset + mid * INDEX_ENTRY_SIZE) <= afterId + 1) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static boolean overlaps(LocalDate min, LocalDate max, AuditEventQuery query) {
+        return (query.from() == null || !max.isBefore(query.from()))
+                && (query.to() == null || !min.isAfter(query.to()));
+    }
+
+    private static boolean matches(SecurityEvent event, AuditEventQuery query) {
+        return (query.action() == null || query.action().equalsIgnoreCase(event.getAction()))
+                && (query.subject() == null || query.subject().equalsIgnoreCase(event.getSubject()))
+                && (query.path() == null || query.path().equals(event.getPath()))
+                && overlaps(event.getDate(), event.getDate(), query);
+    }
+
+    private static SecurityEvent read(ByteBuffer records) {
+        return SecurityEvent.builder()
+                .id(records.getLong())
+                .date(LocalDate.ofEpochDay(records.getInt()))
+                .action(readString(records))
+                .subject(readString(records))
+                .object(readString(records))
+                .path(readString(records))
+                .build();
+    }
+
+    private static String readString(ByteBuffer records) {
+        int length = records.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        records.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public long firstId() {
+        return firstId;
+    }
+
+    public long lastId() {
+        return lastId;
+    }
+}
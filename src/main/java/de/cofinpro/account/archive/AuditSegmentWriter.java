@@ -0,0 +1,132 @@
+package de.cofinpro.account.archive;
+
+import de.cofinpro.account.persistence.SecurityEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * sequential writer of an AuditSegment file: the events must be appended ascending by id. The segment is written to
+ * a temp file and atomically moved to the target on finish - so readers only ever see complete segments.
+ */
+public class AuditSegmentWriter implements AutoCloseable {
+
+    private final Path target;
+    private final Path tempFile;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private long position = AuditSegment.HEADER_SIZE;
+    private int count;
+    private long firstId;
+    private long lastId;
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+    private int blockMinDay;
+    private int blockMaxDay;
+    private boolean finished;
+
+    public AuditSegmentWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.tempFile = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".tmp");
+        this.channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+        this.channel.position(AuditSegment.HEADER_SIZE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    /**
+     * append the next event - its id must be greater than the one appended before.
+     */
+    public void append(SecurityEvent event) throws IOException {
+        if (count > 0 && event.getId() <= lastId) {
+            throw new IllegalArgumentException("audit events must be appended ascending by id");
+        }
+        int day = (int) event.getDate().toEpochDay();
+        if (count % AuditSegment.INDEX_INTERVAL == 0) {
+            finishBlock();
+            indexOut.writeLong(event.getId());
+            indexOut.writeLong(position);
+            blockMinDay = day;
+            blockMaxDay = day;
+        }
+        if (count == 0) {
+            firstId = event.getId();
+        }
+        lastId = event.getId();
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+        blockMinDay = Math.min(blockMinDay, day);
+        blockMaxDay = Math.max(blockMaxDay, day);
+        out.writeLong(event.getId());
+        out.writeInt(day);
+        position += Long.BYTES + Integer.BYTES;
+        position += writeString(event.getAction());
+        position += writeString(event.getSubject());
+        position += writeString(event.getObject());
+        position += writeString(event.getPath());
+        count++;
+    }
+
+    /**
+     * write index and header and move the segment to its target.
+     * @return number of events written
+     */
+    public int finish() throws IOException {
+        finishBlock();
+        out.write(index.toByteArray());
+        out.flush();
+        ByteBuffer header = ByteBuffer.allocate(AuditSegment.HEADER_SIZE)
+                .putInt(AuditSegment.MAGIC).putInt(AuditSegment.VERSION).putInt(count)
+                .putInt(index.size() / AuditSegment.INDEX_ENTRY_SIZE)
+                .putLong(firstId).putLong(lastId).putInt(minDay).putInt(maxDay).putLong(position)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header, AuditSegment.HEADER_SIZE - header.remaining());
+        }
+        channel.force(true);
+        out.close();
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+        return count;
+    }
+
+    private void finishBlock() throws IOException {
+        if (count > 0) {
+            indexOut.writeInt(blockMinDay);
+            indexOut.writeInt(blockMaxDay);
+        }
+    }
+
+    private int writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return Integer.BYTES;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+
+    /**
+     * discards the temp file, if the segment was not finished.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
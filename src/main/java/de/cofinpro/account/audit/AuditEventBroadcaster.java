@@ -0,0 +1,92 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.archive.AuditArchive;
+import de.cofinpro.account.persistence.AuditEventQuery;
+import de.cofinpro.account.persistence.SecurityEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * live tail of the audit log: the AuditEventWriter publishes every event after it is committed into a multicast
+ * sink, that never blocks the writer. Each subscriber gets its own buffer of account.audit.stream.buffer-size
+ * events (plus the single event prefetched by its publish operator) - a consumer too slow to keep up overflows it
+ * and is dropped (its stream terminates with an overflow error), the others are not affected.
+ * A tail first replays the persisted (and archived) events after a given id page by page and then continues with
+ * the live events.
+ */
+@Component
+@Slf4j
+public class AuditEventBroadcaster {
+
+    private static final int REPLAY_PAGE_SIZE = 500;
+
+    private final Sinks.Many<SecurityEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final AuditArchive auditArchive;
+    private final int bufferSize;
+    private final Counter droppedSubscribers;
+
+    public AuditEventBroadcaster(AuditArchive auditArchive, MeterRegistry meterRegistry,
+                                 @Value("${account.audit.stream.buffer-size:256}") int bufferSize) {
+        this.auditArchive = auditArchive;
+        this.bufferSize = bufferSize;
+        this.droppedSubscribers = meterRegistry.counter("account.audit.stream.dropped");
+        meterRegistry.gauge("account.audit.stream.subscribers", sink, Sinks.Many::currentSubscriberCount);
+    }
+
+    /**
+     * publish committed events to all live subscribers - serialized, as the sink requires.
+     */
+    public synchronized void publish(List<SecurityEvent> events) {
+        if (sink.currentSubscriberCount() > 0) {
+            events.forEach(sink::tryEmitNext);
+        }
+    }
+
+    /**
+     * stream of all events with id greater than afterId - the persisted ones first, then the live ones.
+     * The live subscription starts before the replay, so no event committed in between is missed.
+     * @param afterId id of the last event the subscriber knows (0 for all)
+     */
+    public Flux<SecurityEvent> tail(long afterId) {
+        return Flux.defer(() -> {
+            AtomicReference<Disposable> liveConnection = new AtomicReference<>();
+            AtomicLong lastReplayedId = new AtomicLong(afterId);
+            Flux<SecurityEvent> live = sink.asFlux()
+                    .onBackpressureBuffer(bufferSize, dropped -> {
+                        droppedSubscribers.increment();
+                        log.warn("audit stream subscriber too slow - dropped");
+                    })
+                    // prefetch 1: the buffer alone bounds the events held per subscriber
+                    .publish(1)
+                    .autoConnect(0, liveConnection::set);
+            return replay(lastReplayedId)
+                    .concatWith(live.filter(event -> event.getId() > lastReplayedId.get()))
+                    .doFinally(signal -> liveConnection.get().dispose());
+        });
+    }
+
+    private Flux<SecurityEvent> replay(AtomicLong lastReplayedId) {
+        return auditArchive.findPage(new AuditEventQuery(lastReplayedId.get(), REPLAY_PAGE_SIZE,
+                        null, null, null, null, null))
+                .collectList()
+                .flatMapMany(page -> {
+                    if (page.isEmpty()) {
+                        return Flux.empty();
+                    }
+                    lastReplayedId.set(page.get(page.size() - 1).getId());
+                    Flux<SecurityEvent> events = Flux.fromIterable(page);
+                    return page.size() < REPLAY_PAGE_SIZE ? events
+                            : events.concatWith(Flux.defer(() -> replay(lastReplayedId)));
+                });
+    }
+}
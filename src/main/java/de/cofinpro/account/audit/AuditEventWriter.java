@@ -0,0 +1,226 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.SecurityEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * write-behind pipeline for the audit events: events are put into a bounded in-memory queue and written by one
+ * flusher as multi-row INSERT batches - as soon as account.audit.batch-size events are queued or at the latest
+ * after account.audit.max-delay. Remaining events are flushed on shutdown.
+ * With durability FIRE_AND_FORGET (default) the returned Mono completes immediately after queueing, so auditing adds
+ * no latency to the request. With WAIT_FOR_FLUSH it completes after the event's batch is committed (with the id
+ * set) - a waiting event starts the flusher right away, events queued meanwhile form the next batch.
+ * Events are queued on subscription of the returned Mono. On a full queue the overflow policy CALLER_RUNS writes the event
+ * directly in the caller's chain, DROP discards it (logged and counted).
+ * Metrics: account.audit.queue.size, account.audit.flush (latency), account.audit.batch.size, account.audit.dropped.
+ */
+@Component
+@Slf4j
+public class AuditEventWriter implements DisposableBean {
+
+    public enum Durability { WAIT_FOR_FLUSH, FIRE_AND_FORGET }
+
+    public enum OverflowPolicy { CALLER_RUNS, DROP }
+
+    private static final int COLUMNS = 5;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DatabaseClient databaseClient;
+    private final AuditEventBroadcaster broadcaster;
+    private final AuditStatistics statistics;
+    private final Durability durability;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final BlockingQueue<PendingEvent> queue;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicReference<Mono<Void>> runningFlush = new AtomicReference<>(Mono.empty());
+    private final Disposable flushTask;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter dropped;
+
+    public AuditEventWriter(DatabaseClient databaseClient, AuditEventBroadcaster broadcaster,
+                            AuditStatistics statistics, MeterRegistry meterRegistry,
+                            @Value("${account.audit.durability:FIRE_AND_FORGET}") Durability durability,
+                            @Value("${account.audit.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy,
+                            @Value("${account.audit.queue-capacity:10000}") int queueCapacity,
+                            @Value("${account.audit.batch-size:100}") int batchSize,
+                            @Value("${account.audit.max-delay:20ms}") Duration maxDelay) {
+        this.databaseClient = databaseClient;
+        this.broadcaster = broadcaster;
+        this.statistics = statistics;
+        this.durability = durability;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gaugeCollectionSize("account.audit.queue.size", Tags.empty(), queue);
+        this.flushTimer = meterRegistry.timer("account.audit.flush");
+        this.batchSizes = meterRegistry.summary("account.audit.batch.size");
+        this.dropped = meterRegistry.counter("account.audit.dropped");
+        this.flushTask = Flux.interval(maxDelay, maxDelay, Schedulers.boundedElastic())
+                .subscribe(tick -> triggerFlush());
+    }
+
+    /**
+     * queue the event for the next batch.
+     * @return Mono of the event - completing according to the durability mode.
+     */
+    public Mono<SecurityEvent> write(SecurityEvent event) {
+        return Mono.defer(() -> {
+            Sinks.One<SecurityEvent> result = durability == Durability.WAIT_FOR_FLUSH ? Sinks.one() : null;
+            if (!queue.offer(new PendingEvent(event, result))) {
+                return handleOverflow(event);
+            }
+            if (result != null || queue.size() >= batchSize) {
+                triggerFlush();
+            }
+            return result == null ? Mono.just(event) : result.asMono();
+        });
+    }
+
+    private Mono<SecurityEvent> handleOverflow(SecurityEvent event) {
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            dropped.increment();
+            log.warn("audit queue full - dropped event {}", event);
+            return Mono.just(event);
+        }
+        return insert(List.of(event)).thenReturn(event);
+    }
+
+    /**
+     * start the flusher, if it is not running - it writes batches until the queue is empty.
+     */
+    private void triggerFlush() {
+        if (!queue.isEmpty() && flushing.compareAndSet(false, true)) {
+            Mono<Void> flush = writeBatches()
+                    .doFinally(signal -> {
+                        flushing.set(false);
+                        if (queue.size() >= batchSize || hasWaitingEvents()) {
+                            triggerFlush();
+                        }
+                    })
+                    .cache();
+            runningFlush.set(flush);
+            flush.subscribe();
+        }
+    }
+
+    private boolean hasWaitingEvents() {
+        return durability == Durability.WAIT_FOR_FLUSH && !queue.isEmpty();
+    }
+
+    private Mono<Void> writeBatches() {
+        return Mono.defer(() -> {
+            List<PendingEvent> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            return writeBatch(batch).then(writeBatches());
+        });
+    }
+
+    private Mono<Void> writeBatch(List<PendingEvent> batch) {
+        long start = System.nanoTime();
+        List<SecurityEvent> events = batch.stream().map(PendingEvent::event).toList();
+        return insert(events)
+                .doOnSuccess(ignored -> {
+                    flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    batchSizes.record(batch.size());
+                    batch.stream().filter(pending -> pending.result() != null)
+                            .forEach(pending -> pending.result().tryEmitValue(pending.event()));
+                })
+                .onErrorResume(error -> {
+                    log.error("writing {} audit events failed", batch.size(), error);
+                    batch.stream().filter(pending -> pending.result() != null)
+                            .forEach(pending -> pending.result().tryEmitError(error));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * one multi-row INSERT for all events. The generated ids are selected from the FINAL TABLE of the insert and
+     * set on the events in insertion order. The committed events are counted in the statistics rollup and published
+     * to the live audit stream.
+     */
+    private Mono<Void> insert(List<SecurityEvent> events) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id FROM FINAL TABLE (INSERT INTO AUDIT (date, action, subject, object, path) VALUES ");
+        for (int i = 0; i < events.size(); i++) {
+            int offset = i * COLUMNS;
+            sql.append(i == 0 ? "" : ", ").append("($%d, $%d, $%d, $%d, $%d)"
+                    .formatted(offset + 1, offset + 2, offset + 3, offset + 4, offset + 5));
+        }
+        sql.append(")");
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(sql.toString());
+        for (int i = 0; i < events.size(); i++) {
+            SecurityEvent event = events.get(i);
+            int offset = i * COLUMNS;
+            insert = bind(insert, offset, event.getDate());
+            insert = bind(insert, offset + 1, event.getAction());
+            insert = bind(insert, offset + 2, event.getSubject());
+            insert = bind(insert, offset + 3, event.getObject());
+            insert = bind(insert, offset + 4, event.getPath());
+        }
+        return insert.map(row -> row.get("id", Long.class))
+                .all()
+                .sort()
+                .collectList()
+                .doOnNext(ids -> {
+                    for (int i = 0; i < ids.size() && i < events.size(); i++) {
+                        events.get(i).setId(ids.get(i));
+                    }
+                    statistics.record(events);
+                    broadcaster.publish(events);
+                })
+                .then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index,
+                                                          Object value) {
+        return value == null ? spec.bindNull(index, String.class) : spec.bind(index, value);
+    }
+
+    /**
+     * flushes all queued events on shutdown - after waiting for a running flush to complete.
+     */
+    @Override
+    public void destroy() {
+        flushTask.dispose();
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        while (!flushing.compareAndSet(false, true)) {
+            Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+            if (remaining.isNegative()) {
+                log.warn("running audit flush not completed within {} - flushing remaining events", SHUTDOWN_TIMEOUT);
+                break;
+            }
+            runningFlush.get().block(remaining);
+        }
+        writeBatches().block(SHUTDOWN_TIMEOUT);
+    }
+
+    private record PendingEvent(SecurityEvent event, Sinks.One<SecurityEvent> result) {
+    }
+}
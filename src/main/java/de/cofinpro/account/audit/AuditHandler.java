@@ -1,34 +1,159 @@
 package de.cofinpro.account.audit;
 
+import de.cofinpro.account.archive.AuditArchive;
 import de.cofinpro.account.persistence.*;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
 
+import static de.cofinpro.account.configuration.AuditConfiguration.*;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
 /**
- * service layer handler class for all audit specific endpoints: /api/security/events (GET).
+ * service layer handler class for all audit specific endpoints: /api/security/events,
+ * /api/security/events/stream and /api/security/stats (GET).
  */
 @Service
 public class AuditHandler {
 
-    private final SecurityEventReactiveRepository auditRepository;
+    private final AuditArchive auditArchive;
+    private final AuditEventBroadcaster broadcaster;
+    private final AuditStatistics statistics;
 
-    public AuditHandler(SecurityEventReactiveRepository securityEventReactiveRepository) {
-        this.auditRepository = securityEventReactiveRepository;
+    public AuditHandler(AuditArchive auditArchive, AuditEventBroadcaster broadcaster, AuditStatistics statistics) {
+        this.auditArchive = auditArchive;
+        this.broadcaster = broadcaster;
+        this.statistics = statistics;
     }
 
     /**
      * controller handler for GET endpoint /api/security/events available only to authorized users with AUDITOR role. It
-     * provides the auditor with a list of all (persistent) security events ordered by id.
-     * @return ServerResponse Mono with a list of all security events from application runs stored in the database.
+     * provides the auditor with a page of the (persistent and archived) security events ordered by id.
+     * Optional query parameters: afterId (cursor), limit (page size), action, subject, path, from and to (ISO dates).
+     * If more events follow, the cursor for the next page (afterId) is given in the X-Next-Cursor header.
+     * @return ServerResponse Mono with a page of security events from application runs stored in the database.
      */
-    public Mono<ServerResponse> getAuditEvents(ServerRequest ignoredRequest) {
-        return ok().body(auditRepository.findAll(Sort.by(Sort.Direction.ASC, "id"))
-                .map(SecurityEvent::toResponse), AuditEventResponse.class);
+    public Mono<ServerResponse> getAuditEvents(ServerRequest request) {
+        AuditEventQuery query;
+        try {
+            query = toQuery(request);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        return auditArchive.findPage(new AuditEventQuery(query.afterId(), query.limit() + 1, query.action(),
+                        query.subject(), query.path(), query.from(), query.to()))
+                .map(SecurityEvent::toResponse)
+                .collectList()
+                .flatMap(events -> events.size() > query.limit()
+                        ? nextPageResponse(events.subList(0, query.limit()))
+                        : ok().bodyValue(events));
+    }
+
+    /**
+     * controller handler for GET endpoint /api/security/events/stream (AUDITOR role): live tail of the security events.
+     * Replays the events after the id given as query parameter afterId (or as Last-Event-ID header of a reconnecting
+     * EventSource) and then pushes every new event - as Server-Sent Events (with the event id) or as NDJSON, if
+     * requested by the Accept header.
+     * @return ServerResponse Mono with the infinite event stream.
+     */
+    public Mono<ServerResponse> streamAuditEvents(ServerRequest request) {
+        long afterId;
+        try {
+            afterId = request.queryParam("afterId").isPresent()
+                    ? queryParam(request, "afterId", Long::parseLong, 0L)
+                    : request.headers().header(LAST_EVENT_ID_HEADER).stream().findFirst()
+                            .map(AuditHandler::parseLastEventId).orElse(0L);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        Flux<AuditEventResponse> events = broadcaster.tail(afterId).map(SecurityEvent::toResponse);
+        if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ok().contentType(MediaType.APPLICATION_NDJSON).body(events, AuditEventResponse.class);
+        }
+        return ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events.map(event ->
+                        ServerSentEvent.builder(event).id(String.valueOf(event.id())).build())));
+    }
+
+    /**
+     * controller handler for GET endpoint /api/security/stats (AUDITOR role): event counts per day, action and subject
+     * from the incrementally maintained rollup. Optional query parameters: from and to (ISO dates), action, subject
+     * and groupBy (day_subject = default, day or subject - the other dimension is summed up).
+     * @return ServerResponse Mono with the list of counts.
+     */
+    public Mono<ServerResponse> getAuditStatistics(ServerRequest request) {
+        LocalDate from;
+        LocalDate to;
+        AuditStatistics.GroupBy groupBy;
+        try {
+            from = queryParam(request, "from", LocalDate::parse, null);
+            to = queryParam(request, "to", LocalDate::parse, null);
+            groupBy = queryParam(request, "groupBy", AuditHandler::parseGroupBy, AuditStatistics.GroupBy.DAY_SUBJECT);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return Mono.error(new ServerWebInputException(INVALID_DATE_RANGE_ERRORMSG));
+        }
+        return ok().body(statistics.query(from, to, request.queryParam("action").orElse(null),
+                request.queryParam("subject").orElse(null), groupBy), AuditStatsResponse.class);
+    }
+
+    private static AuditStatistics.GroupBy parseGroupBy(String groupBy) {
+        try {
+            return AuditStatistics.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new ServerWebInputException(INVALID_QUERY_PARAM_ERRORMSG.formatted("groupBy", groupBy));
+        }
+    }
+
+    private static long parseLastEventId(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId);
+        } catch (NumberFormatException exception) {
+            throw new ServerWebInputException(INVALID_QUERY_PARAM_ERRORMSG.formatted(LAST_EVENT_ID_HEADER, lastEventId));
+        }
+    }
+
+    private Mono<ServerResponse> nextPageResponse(List<AuditEventResponse> page) {
+        return ok().header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).id()))
+                .bodyValue(page);
+    }
+
+    private static AuditEventQuery toQuery(ServerRequest request) {
+        long afterId = queryParam(request, "afterId", Long::parseLong, 0L);
+        int limit = queryParam(request, "limit", Integer::parseInt, DEFAULT_EVENTS_PAGE_SIZE);
+        if (limit < 1 || limit > MAX_EVENTS_PAGE_SIZE) {
+            throw new ServerWebInputException(INVALID_LIMIT_ERRORMSG);
+        }
+        LocalDate from = queryParam(request, "from", LocalDate::parse, null);
+        LocalDate to = queryParam(request, "to", LocalDate::parse, null);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ServerWebInputException(INVALID_DATE_RANGE_ERRORMSG);
+        }
+        return new AuditEventQuery(afterId, limit, request.queryParam("action").orElse(null),
+                request.queryParam("subject").orElse(null), request.queryParam("path").orElse(null), from, to);
+    }
+
+    private static <T> T queryParam(ServerRequest request, String name, Function<String, T> parser, T defaultValue) {
+        return request.queryParam(name).map(value -> {
+            try {
+                return parser.apply(value);
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                throw new ServerWebInputException(INVALID_QUERY_PARAM_ERRORMSG.formatted(name, value));
+            }
+        }).orElse(defaultValue);
     }
 }
@@ -3,27 +3,27 @@ package de.cofinpro.account.audit;
 import de.cofinpro.account.admin.LockUserToggleRequest;
 import de.cofinpro.account.admin.RoleToggleRequest;
 import de.cofinpro.account.persistence.SecurityEvent;
-import de.cofinpro.account.persistence.SecurityEventReactiveRepository;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 /**
- * component bean, that takes over all the security logging. It autowires the SecurityEventReactiveRepository.
+ * component bean, that takes over all the security logging. The events are written by the write-behind
+ * AuditEventWriter in batches.
  */
 @Component
 public class AuditLogger {
 
-    private final SecurityEventReactiveRepository auditRepository;
+    private final AuditEventWriter auditEventWriter;
 
-    public AuditLogger(SecurityEventReactiveRepository auditRepository) {
-        this.auditRepository = auditRepository;
+    public AuditLogger(AuditEventWriter auditEventWriter) {
+        this.auditEventWriter = auditEventWriter;
     }
 
     /**
      * logs all signup activity
      */
     public Mono<SecurityEvent> logCreateUser(String newUser) {
-        return auditRepository.save(SecurityEvent.builder().action("CREATE_USER")
+        return auditEventWriter.write(SecurityEvent.builder().action("CREATE_USER")
                 .subject("Anonymous").object(newUser).path("/api/auth/signup").build());
     }
 
@@ -36,7 +36,7 @@ public class AuditLogger {
         String object = roleToggleRequest.operation().equalsIgnoreCase("GRANT")
                 ? "Grant role %s to %s".formatted(role, roleToggleRequest.user())
                 : "Remove role %s from %s".formatted(role, roleToggleRequest.user());
-        return auditRepository.save(SecurityEvent.builder().action(action).subject(admin)
+        return auditEventWriter.write(SecurityEvent.builder().action(action).subject(admin)
                 .object(object).path("/api/admin/user/role").build());
     }
 
@@ -48,7 +48,7 @@ public class AuditLogger {
         String object = lockToggleRequest.operation().equalsIgnoreCase("LOCK")
                 ? "Lock user %s".formatted(lockToggleRequest.user())
                 : "Unlock user %s".formatted(lockToggleRequest.user());
-        return auditRepository.save(SecurityEvent.builder().action(action).subject(admin)
+        return auditEventWriter.write(SecurityEvent.builder().action(action).subject(admin)
                 .object(object).path("/api/admin/user/access").build());
     }
 
@@ -56,7 +56,7 @@ public class AuditLogger {
      * log of admin's action of deleting a user.
      */
     public Mono<SecurityEvent> logDeleteUser(String admin, String user) {
-        return auditRepository.save(SecurityEvent.builder().action("DELETE_USER").subject(admin)
+        return auditEventWriter.write(SecurityEvent.builder().action("DELETE_USER").subject(admin)
                 .object(user).path("/api/admin/user").build());
     }
 
@@ -64,7 +64,7 @@ public class AuditLogger {
      * security log of change password actions
      */
     public Mono<SecurityEvent> logChangePassword(String email) {
-        return auditRepository.save(SecurityEvent.builder().action("CHANGE_PASSWORD").subject(email)
+        return auditEventWriter.write(SecurityEvent.builder().action("CHANGE_PASSWORD").subject(email)
                 .object(email).path("/api/auth/changepass").build());
     }
 
@@ -72,7 +72,7 @@ public class AuditLogger {
      * failure logging of unauthorized access to authorized endpoints
      */
     public Mono<SecurityEvent> logAccessDenied(String user, String path) {
-        return auditRepository.save(SecurityEvent.builder().action("ACCESS_DENIED").subject(user)
+        return auditEventWriter.write(SecurityEvent.builder().action("ACCESS_DENIED").subject(user)
                 .object(path).path(path).build());
     }
 
@@ -80,7 +80,7 @@ public class AuditLogger {
      * audit logging for failed logins to authenticated endpoints.
      */
     public Mono<SecurityEvent> logFailedLogin(String user, String path) {
-        return auditRepository.save(SecurityEvent.builder().action("LOGIN_FAILED").subject(user)
+        return auditEventWriter.write(SecurityEvent.builder().action("LOGIN_FAILED").subject(user)
                 .object(path).path(path).build());
     }
 
@@ -88,9 +88,9 @@ public class AuditLogger {
      * logging od a brut force event, where a user gets locked by the system.
      */
     public Mono<SecurityEvent> logBruteForce(String user, String path) {
-        return auditRepository.save(SecurityEvent.builder().action("BRUTE_FORCE").subject(user)
+        return auditEventWriter.write(SecurityEvent.builder().action("BRUTE_FORCE").subject(user)
                         .object(path).path(path).build())
-                .then(auditRepository.save(SecurityEvent.builder().action("LOCK_USER").subject(user)
-                        .object("Lock user %s".formatted(user)).path(path).build()));
+                .zipWith(auditEventWriter.write(SecurityEvent.builder().action("LOCK_USER").subject(user)
+                        .object("Lock user %s".formatted(user)).path(path).build()), (bruteForce, lock) -> lock);
     }
 }
@@ -0,0 +1,218 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.SecurityEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * incrementally maintained rollup of the audit events: counts per day, action and subject. The AuditEventWriter
+ * records every committed event here - the increments are held in memory and added to the AUDIT_STATS table
+ * every account.audit.stats.flush-interval (and on shutdown). Queries read the (few) matching rollup rows plus
+ * the not yet flushed increments - their cost depends on the number of buckets, not on the number of events.
+ * A flush holds the write lock of flushLock while it moves increments into the table; a query takes an optimistic
+ * read stamp around its snapshot of the increments and its SELECT and is repeated if a flush ran in between -
+ * otherwise an increment could be counted twice (in the snapshot and in the table) or not at all.
+ */
+@Component
+@Slf4j
+public class AuditStatistics implements DisposableBean {
+
+    /**
+     * the dimensions the counts are grouped by in a statistics query.
+     */
+    public enum GroupBy { DAY_SUBJECT, DAY, SUBJECT }
+
+    private static final String NO_SUBJECT = "";
+    private static final String MERGE_SQL = """
+            MERGE INTO AUDIT_STATS s
+            USING (VALUES (CAST($1 AS DATE), CAST($2 AS VARCHAR), CAST($3 AS VARCHAR), CAST($4 AS BIGINT)))
+                AS v (day, action, subject, events)
+            ON s.day = v.day AND s.action = v.action AND s.subject = v.subject
+            WHEN MATCHED THEN UPDATE SET events = s.events + v.events
+            WHEN NOT MATCHED THEN INSERT (day, action, subject, events) VALUES (v.day, v.action, v.subject, v.events)
+            """;
+    private static final int MAX_QUERY_RETRIES = 20;
+
+    private final DatabaseClient databaseClient;
+    private final Map<StatsKey, Long> increments = new ConcurrentHashMap<>();
+    private final StampedLock flushLock = new StampedLock();
+    private final Disposable flushTask;
+
+    public AuditStatistics(DatabaseClient databaseClient,
+                           @Value("${account.audit.stats.flush-interval:10s}") Duration flushInterval) {
+        this.databaseClient = databaseClient;
+        this.flushTask = Flux.interval(flushInterval, flushInterval, Schedulers.boundedElastic())
+                .concatMap(tick -> flush()
+                        .onErrorResume(error -> {
+                            log.error("persisting audit statistics failed", error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /**
+     * count the committed events.
+     */
+    public void record(List<SecurityEvent> events) {
+        events.forEach(event -> increments.merge(StatsKey.of(event.getDate(), event.getAction(),
+                event.getSubject()), 1L, Long::sum));
+    }
+
+    /**
+     * event counts of the buckets matching the filters - grouped as requested.
+     * @param from   first day (inclusive), null for no lower bound
+     * @param to     last day (inclusive), null for no upper bound
+     * @param action action filter or null
+     * @param subject subject filter or null
+     * @param groupBy dimensions to keep - the others are summed up
+     * @return Flux of the counts ordered by day, action and subject
+     */
+    public Flux<AuditStatsResponse> query(LocalDate from, LocalDate to, String action, String subject,
+                                          GroupBy groupBy) {
+        StringBuilder sql = new StringBuilder("SELECT day, action, subject, events FROM AUDIT_STATS WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        appendFilter(sql, parameters, "day >= $", from);
+        appendFilter(sql, parameters, "day <= $", to);
+        appendFilter(sql, parameters, "action = $", action == null ? null : action.toUpperCase(Locale.ROOT));
+        appendFilter(sql, parameters, "subject = $", subject == null ? null : subject.toLowerCase(Locale.ROOT));
+        DatabaseClient.GenericExecuteSpec select = databaseClient.sql(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            select = select.bind(i, parameters.get(i));
+        }
+        DatabaseClient.GenericExecuteSpec statement = select;
+        return Mono.defer(() -> {
+                    long stamp = flushLock.tryOptimisticRead();
+                    if (stamp == 0) {
+                        return Mono.error(new ConcurrentFlushException());
+                    }
+                    Map<StatsKey, Long> pending = Map.copyOf(increments);
+                    return statement.map(row -> Map.entry(StatsKey.of(row.get("day", LocalDate.class),
+                                    row.get("action", String.class), row.get("subject", String.class)),
+                                    row.get("events", Long.class)))
+                            .all()
+                            .collectList()
+                            .flatMap(persisted -> flushLock.validate(stamp)
+                                    ? Mono.just(counts(persisted, pending, from, to, action, subject, groupBy))
+                                    : Mono.error(new ConcurrentFlushException()));
+                })
+                .retryWhen(Retry.backoff(MAX_QUERY_RETRIES, Duration.ofMillis(5))
+                        .maxBackoff(Duration.ofMillis(200))
+                        .filter(ConcurrentFlushException.class::isInstance))
+                .flatMapIterable(counts -> counts.entrySet().stream()
+                        .map(entry -> entry.getKey().toResponse(entry.getValue()))
+                        .sorted(Comparator.comparing(AuditStatsResponse::day,
+                                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                                .thenComparing(AuditStatsResponse::action)
+                                .thenComparing(AuditStatsResponse::subject,
+                                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .toList());
+    }
+
+    private static Map<StatsKey, Long> counts(List<Map.Entry<StatsKey, Long>> persisted, Map<StatsKey, Long> pending,
+                                              LocalDate from, LocalDate to, String action, String subject,
+                                              GroupBy groupBy) {
+        Map<StatsKey, Long> counts = new HashMap<>();
+        persisted.forEach(entry -> counts.merge(group(entry.getKey(), groupBy), entry.getValue(), Long::sum));
+        pending.forEach((key, count) -> {
+            if (key.matches(from, to, action, subject)) {
+                counts.merge(group(key, groupBy), count, Long::sum);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * add the in-memory increments to the rollup table. Each increment is removed atomically before it is written,
+     * failed ones are put back for the next flush. The write lock is held until all MERGEs are done, so queries
+     * overlapping the flush are repeated (a second flush waits for the first one).
+     */
+    Mono<Void> flush() {
+        return Mono.using(flushLock::writeLock, stamp -> Flux.fromIterable(List.copyOf(increments.keySet()))
+                .concatMap(key -> {
+                    Long increment = increments.remove(key);
+                    if (increment == null) {
+                        return Mono.empty();
+                    }
+                    return databaseClient.sql(MERGE_SQL)
+                            .bind(0, key.day()).bind(1, key.action()).bind(2, key.subject()).bind(3, increment)
+                            .then()
+                            .onErrorResume(error -> {
+                                increments.merge(key, increment, Long::sum);
+                                return Mono.error(error);
+                            });
+                })
+                .then(), flushLock::unlockWrite);
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> parameters, String condition, Object value) {
+        if (value != null) {
+            parameters.add(value);
+            sql.append(" AND ").append(condition).append(parameters.size());
+        }
+    }
+
+    private static StatsKey group(StatsKey key, GroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY_SUBJECT -> key;
+            case DAY -> new StatsKey(key.day(), key.action(), null);
+            case SUBJECT -> new StatsKey(null, key.action(), key.subject());
+        };
+    }
+
+    @Override
+    public void destroy() {
+        flushTask.dispose();
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * signals a query that overlapped a flush - the query is repeated.
+     */
+    private static class ConcurrentFlushException extends RuntimeException {
+
+        ConcurrentFlushException() {
+            super("audit statistics flushed during query", null, false, false);
+        }
+    }
+
+    /**
+     * bucket key - action is normalized to upper case, subject (an email) to lower case, as the columns are
+     * case-insensitive. A missing subject is counted as empty subject. Null day or subject mean "summed up".
+     */
+    private record StatsKey(LocalDate day, String action, String subject) {
+
+        static StatsKey of(LocalDate day, String action, String subject) {
+            return new StatsKey(day, action.toUpperCase(Locale.ROOT),
+                    subject == null ? NO_SUBJECT : subject.toLowerCase(Locale.ROOT));
+        }
+
+        boolean matches(LocalDate from, LocalDate to, String action, String subject) {
+            return (from == null || !day.isBefore(from)) && (to == null || !day.isAfter(to))
+                    && (action == null || action.equalsIgnoreCase(this.action))
+                    && (subject == null || subject.equalsIgnoreCase(this.subject));
+        }
+
+        AuditStatsResponse toResponse(long count) {
+            return new AuditStatsResponse(day, action, subject, count);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package de.cofinpro.account.audit;
+
+import java.time.LocalDate;
+
+/**
+ * immutable AuditStatsResponse for the AUDITOR accessed endpoint /api/security/stats returning a list of these.
+ * Day or subject are null, if the counts are summed up over them (query parameter groupBy).
+ */
+public record AuditStatsResponse(LocalDate day, String action, String subject, long count) {
+}
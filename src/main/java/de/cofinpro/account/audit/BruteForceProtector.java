@@ -1,62 +1,132 @@
 package de.cofinpro.account.audit;
 
+import de.cofinpro.account.audit.FailedLoginCounter.FailureOutcome;
 import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.LoginChangedEvent;
 import de.cofinpro.account.persistence.LoginReactiveRepository;
 import de.cofinpro.account.persistence.SecurityEvent;
+import de.cofinpro.account.security.LoginCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import static de.cofinpro.account.configuration.AdminConfiguration.LOGIN_FAILED_LIMIT;
+import java.time.Duration;
+import java.util.Map;
 
 /**
- * bean class that handles the increment or reset of failed = unauthenticated logins. When the
- * LIMIT of failed logins is reached, it triggers the locking of the affected user.
+ * bean class that handles the increment or reset of failed = unauthenticated logins. The failures are counted
+ * in the lock-free FailedLoginCounter - the lock decision is taken atomically there. When the LIMIT of failed logins
+ * is reached, it triggers the locking of the affected user, which is the only synchronous database write.
+ * The changed counters are persisted coalesced every account.brute-force.flush-interval (and on shutdown).
+ * A successful login only touches the database, if there are failures to reset - performed and skipped resets are
+ * counted in the "account.login.failure-resets" metric.
  */
 @Component
-public class BruteForceProtector {
+@Slf4j
+public class BruteForceProtector implements DisposableBean {
+
+    private static final String RESETS_METRIC = "account.login.failure-resets";
 
     private final AuditLogger auditLogger;
     private final LoginReactiveRepository userRepository;
+    private final LoginCache loginCache;
+    private final FailedLoginCounter failedLoginCounter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Disposable flushTask;
+    private final Counter performedResets;
+    private final Counter skippedResets;
 
-    public BruteForceProtector(AuditLogger auditLogger, LoginReactiveRepository userRepository) {
+    public BruteForceProtector(AuditLogger auditLogger, LoginReactiveRepository userRepository,
+                               LoginCache loginCache, FailedLoginCounter failedLoginCounter,
+                               ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                               @Value("${account.brute-force.flush-interval:5s}") Duration flushInterval) {
         this.auditLogger = auditLogger;
         this.userRepository = userRepository;
+        this.loginCache = loginCache;
+        this.failedLoginCounter = failedLoginCounter;
+        this.eventPublisher = eventPublisher;
+        this.performedResets = meterRegistry.counter(RESETS_METRIC, "result", "performed");
+        this.skippedResets = meterRegistry.counter(RESETS_METRIC, "result", "skipped");
+        this.flushTask = Flux.interval(flushInterval, flushInterval, Schedulers.boundedElastic())
+                .concatMap(tick -> flushFailedLogins()
+                        .onErrorResume(error -> {
+                            log.error("persisting failed logins failed", error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
     }
 
     /**
      * method that handles a failed login of a user given by email and the requested path where failure took place
      */
     public Mono<SecurityEvent> handleLoginFail(String email, String path) {
-        return userRepository.findByEmail(email)
+        return loginCache.findByEmail(email)
                 .defaultIfEmpty(Login.unknown())
-                .flatMap(login -> checkFailedAttemptsAndHandle(login, path));
+                .flatMap(login -> checkFailedAttemptsAndHandle(login, email, path));
     }
 
+    /**
+     * resets a users failed login attempts after a successful login of the given (already loaded) Login. The database
+     * is only updated, if there are failures to reset - by one conditional update statement.
+     * Database errors are logged only, as they must not fail the login.
+     * @return Mono completing, when the reset is done
+     */
+    public Mono<Void> resetLoginFailures(Login login) {
+        if (!failedLoginCounter.reset(login.getEmail(), login.getFailedLogins())) {
+            skippedResets.increment();
+            return Mono.empty();
+        }
+        performedResets.increment();
+        return userRepository.resetFailedLogins(login.getEmail())
+                .onErrorResume(error -> {
+                    log.error("reset of failed logins for {} failed", login.getEmail(), error);
+                    return Mono.empty();
+                })
+                .then();
+    }
 
     /**
-     * resets a users failed login attempts in the database
+     * persist all failure counters changed since the last flush - one update per user, however many failures
+     * happened in between.
+     * @return Mono completing, when all updates are done
      */
-    public void resetLoginFailures(String email) {
-        userRepository.findByEmail(email)
-                .flatMap(login -> userRepository.save(login.setFailedLogins(0)))
-                .subscribe();
+    Mono<Void> flushFailedLogins() {
+        Map<String, Integer> changed = failedLoginCounter.drainDirty();
+        return Flux.fromIterable(changed.entrySet())
+                .concatMap(entry -> userRepository.updateFailedLogins(entry.getKey(), entry.getValue()))
+                .then();
     }
 
     /**
      * an authentication failure of a user not in the system or a locked user is only logged here.
-     * Otherwise, the users failed attempts is incremented and stored. If the limit is reached the lock action
-     * on brut force is triggered.
+     * Otherwise, the failure is counted in memory. If this failure reaches the limit, the lock action
+     * on brute force is triggered.
      */
-    private Mono<SecurityEvent> checkFailedAttemptsAndHandle(Login login, String path) {
+    private Mono<SecurityEvent> checkFailedAttemptsAndHandle(Login login, String email, String path) {
         if (login.isUnknown() || login.isAccountLocked()) {
-            return auditLogger.logFailedLogin(login.getEmail(), path);
+            return auditLogger.logFailedLogin(email, path);
         }
-        login.setFailedLogins(login.getFailedLogins() + 1);
-        if (login.getFailedLogins() < LOGIN_FAILED_LIMIT) {
-            return userRepository.save(login).then(auditLogger.logFailedLogin(login.getEmail(), path));
+        FailureOutcome outcome = failedLoginCounter.recordFailure(login.getEmail(), login.getFailedLogins());
+        if (!outcome.lockTriggered()) {
+            return auditLogger.logFailedLogin(login.getEmail(), path);
         }
         return userRepository.toggleLock(login.getEmail(), true)
+                .then(Mono.fromRunnable(() -> eventPublisher.publishEvent(new LoginChangedEvent(login.getEmail()))))
                 .then(auditLogger.logFailedLogin(login.getEmail(), path))
                 .then(auditLogger.logBruteForce(login.getEmail(), path));
     }
-}
\ No newline at end of file
+
+    @Override
+    public void destroy() {
+        flushTask.dispose();
+        flushFailedLogins().block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,160 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.cofinpro.account.configuration.AdminConfiguration.LOGIN_FAILED_LIMIT;
+
+/**
+ * lock-free in-memory store of failed login counters with sliding window expiry. The counters live in a
+ * ConcurrentHashMap (striped by its bins), each user's failure window is an immutable timestamp array updated by
+ * compare-and-set - so concurrent failures never lose an update, and exactly one failure observes the transition to
+ * LOGIN_FAILED_LIMIT, which makes the lock decision atomic.
+ * Changed counters are marked dirty and drained by the BruteForceProtector for coalesced persistence to LOGIN.
+ */
+@Component
+public class FailedLoginCounter {
+
+    private final Duration window;
+    private final Clock clock;
+    private final Map<String, AtomicReference<long[]>> failureWindows = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public FailedLoginCounter(@Value("${account.brute-force.window:15m}") Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    FailedLoginCounter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    /**
+     * record a failed login of the user.
+     * @param email user's email key
+     * @param persistedFailures failed logins persisted in the user's LOGIN record - taken as start value, if the
+     *                          user has no counter in memory yet (e.g. after a restart).
+     * @return the outcome with the failures within the window and whether this failure reached the lock limit.
+     */
+    public FailureOutcome recordFailure(String email, int persistedFailures) {
+        String key = key(email);
+        AtomicReference<long[]> failureWindow = failureWindows.computeIfAbsent(key,
+                k -> new AtomicReference<>(seed(persistedFailures)));
+        while (true) {
+            long now = clock.millis();
+            long[] current = failureWindow.get();
+            long[] retained = retained(current, now);
+            // at most LOGIN_FAILED_LIMIT timestamps are kept - the limit can only be reached once per window
+            int kept = Math.min(retained.length, LOGIN_FAILED_LIMIT - 1);
+            long[] updated = Arrays.copyOfRange(retained, retained.length - kept, retained.length + 1);
+            updated[kept] = now;
+            if (failureWindow.compareAndSet(current, updated)) {
+                dirty.add(key);
+                return new FailureOutcome(updated.length,
+                        updated.length == LOGIN_FAILED_LIMIT && current.length < LOGIN_FAILED_LIMIT);
+            }
+        }
+    }
+
+    /**
+     * reset the user's counter to zero on a successful login.
+     * @param email user's email key
+     * @param persistedFailures failed logins of the user's LOGIN record - only relevant, if the user has no counter
+     *                          in memory yet, else the counter is authoritative.
+     * @return true, if there were failures to reset - i.e. the persisted failed logins need a reset.
+     */
+    public boolean reset(String email, int persistedFailures) {
+        String key = key(email);
+        boolean[] created = new boolean[1];
+        AtomicReference<long[]> failureWindow = failureWindows.computeIfAbsent(key, k -> {
+            created[0] = true;
+            return new AtomicReference<>(new long[0]);
+        });
+        if (created[0]) {
+            return persistedFailures > 0;
+        }
+        dirty.remove(key);
+        return failureWindow.getAndSet(new long[0]).length > 0;
+    }
+
+    /**
+     * any change to the user (lock, unlock, password change...) drops the in-memory counter - the next login
+     * starts from the persisted failed logins again (reset to 0 on lock and unlock).
+     */
+    @EventListener
+    public void onLoginChanged(LoginChangedEvent event) {
+        String key = key(event.email());
+        failureWindows.remove(key);
+        dirty.remove(key);
+    }
+
+    /**
+     * current number of failures of the user within the sliding window.
+     */
+    public int failures(String email) {
+        AtomicReference<long[]> failureWindow = failureWindows.get(key(email));
+        return failureWindow == null ? 0 : retained(failureWindow.get(), clock.millis()).length;
+    }
+
+    /**
+     * expire failures, that dropped out of the sliding window, and return all counters changed since the last call.
+     * @return map of email to current failure count of all dirty users - to be persisted.
+     */
+    public Map<String, Integer> drainDirty() {
+        long now = clock.millis();
+        failureWindows.forEach((key, failureWindow) -> {
+            long[] current = failureWindow.get();
+            if (current.length > 0 && retained(current, now).length < current.length
+                    && failureWindow.compareAndSet(current, retained(current, now))) {
+                dirty.add(key);
+            }
+        });
+        Map<String, Integer> drained = new HashMap<>();
+        for (String key : dirty) {
+            dirty.remove(key);
+            drained.put(key, failures(key));
+        }
+        return drained;
+    }
+
+    private long[] seed(int persistedFailures) {
+        long[] seeded = new long[Math.max(0, Math.min(persistedFailures, LOGIN_FAILED_LIMIT - 1))];
+        Arrays.fill(seeded, clock.millis());
+        return seeded;
+    }
+
+    private long[] retained(long[] failures, long now) {
+        long windowStart = now - window.toMillis();
+        int expired = 0;
+        while (expired < failures.length && failures[expired] <= windowStart) {
+            expired++;
+        }
+        return expired == 0 ? failures : Arrays.copyOfRange(failures, expired, failures.length);
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * result of a recorded failure.
+     * @param failures number of failures within the sliding window including this one
+     * @param lockTriggered true for exactly the one failure, that reached the lock limit
+     */
+    public record FailureOutcome(int failures, boolean lockTriggered) {
+    }
+}
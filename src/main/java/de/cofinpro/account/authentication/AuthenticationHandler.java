@@ -1,13 +1,19 @@
 package de.cofinpro.account.authentication;
 
 import de.cofinpro.account.audit.AuditLogger;
+import de.cofinpro.account.breach.BreachedPasswordChecker;
 import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.LoginChangedEvent;
 import de.cofinpro.account.persistence.LoginReactiveRepository;
 import de.cofinpro.account.persistence.LoginRole;
 import de.cofinpro.account.persistence.LoginRoleReactiveRepository;
+import de.cofinpro.account.security.AccessTokenAuthenticationToken;
+import de.cofinpro.account.security.AccessTokenService;
+import de.cofinpro.account.security.PasswordHashingExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
@@ -22,10 +28,11 @@ import java.security.Principal;
 import java.util.List;
 
 import static de.cofinpro.account.configuration.AuthenticationConfiguration.*;
+import static java.lang.Boolean.TRUE;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
 /**
- * service layer class, that handles the authentication routes /api/auth/*, i.e. signup and changepass.
+ * service layer class, that handles the authentication routes /api/auth/*, i.e. signup, changepass and token.
  */
 @Service
 @Slf4j
@@ -34,19 +41,28 @@ public class AuthenticationHandler {
     private final Validator validator;
     private final LoginReactiveRepository userRepository;
     private final LoginRoleReactiveRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final AuditLogger auditLogger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccessTokenService accessTokenService;
+    private final BreachedPasswordChecker breachedPasswordChecker;
 
     @Autowired
     public AuthenticationHandler(Validator validator,
                                  LoginReactiveRepository userRepository,
                                  LoginRoleReactiveRepository roleRepository,
-                                 PasswordEncoder passwordEncoder, AuditLogger auditLogger) {
+                                 PasswordHashingExecutor passwordHashingExecutor, AuditLogger auditLogger,
+                                 ApplicationEventPublisher eventPublisher,
+                                 AccessTokenService accessTokenService,
+                                 BreachedPasswordChecker breachedPasswordChecker) {
         this.validator = validator;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
         this.auditLogger = auditLogger;
+        this.eventPublisher = eventPublisher;
+        this.accessTokenService = accessTokenService;
+        this.breachedPasswordChecker = breachedPasswordChecker;
     }
 
     /**
@@ -91,7 +107,7 @@ public class AuthenticationHandler {
         if (password == null || password.length() < MIN_PASSWORD_LENGTH) {
             return PASSWORD_TOO_SHORT_ERRORMSG;
         }
-        if (passwordIsHacked(password)) {
+        if (breachedPasswordChecker.isBreached(password)) {
             return PASSWORD_HACKED_ERRORMSG;
         }
         return "";
@@ -109,9 +125,8 @@ public class AuthenticationHandler {
                 .defaultIfEmpty(Login.unknown())
                 .flatMap(user -> {
                     if (user.isUnknown()) {
-                        return userRepository
-                                .save(Login.fromSignupRequest(signupRequest,
-                                        passwordEncoder.encode(signupRequest.password())))
+                        return passwordHashingExecutor.encode(signupRequest.password())
+                                .flatMap(encoded -> userRepository.save(Login.fromSignupRequest(signupRequest, encoded)))
                                 .zipWith(roleRepository.save(LoginRole.builder().email(signupRequest.email()).role(role)
                                         .build()).map(LoginRole::getRole).map(List::of), Login::setRoles)
                                 .zipWith(auditLogger.logCreateUser(signupRequest.email()),
@@ -136,7 +151,8 @@ public class AuthenticationHandler {
 
     /**
      * validates the password (length and not breached) and checks if it differs from last password.
-     * If so, the Login-entity to this user is updated ad saved to the database.
+     * If so, the Login-entity to this user is updated ad saved to the database. Password hashing is done on the
+     * crypto pool of the PasswordHashingExecutor.
      * @param tuple Tuple2 consisting of the ChangepassRequest and the user's principal
      * @return ChangepassResponse if password is updated or informative 400 error Mono
      */
@@ -147,14 +163,32 @@ public class AuthenticationHandler {
             return Mono.error(new ServerWebInputException(passwordValidationError));
         }
         return userRepository.findByEmail(tuple.getT2().getName())
-                .flatMap(user -> {
-                    if (passwordEncoder.matches(newPassword, user.getPassword())) {
-                        return Mono.error(new ServerWebInputException(SAME_PASSWORD_ERRORMSG));
-                    } else {
-                        user.setPassword(passwordEncoder.encode(newPassword));
-                        return userRepository.save(user)
-                                .zipWith(auditLogger.logChangePassword(tuple.getT2().getName()), (login, event) -> login)
-                                .map(login -> new ChangepassResponse(login.getEmail(), PASSWORD_UPDATEMSG));
-                    }});
+                .flatMap(user -> passwordHashingExecutor.matches(newPassword, user.getPassword())
+                        .flatMap(isSamePassword -> {
+                            if (TRUE.equals(isSamePassword)) {
+                                return Mono.error(new ServerWebInputException(SAME_PASSWORD_ERRORMSG));
+                            }
+                            return passwordHashingExecutor.encode(newPassword)
+                                    .flatMap(encoded -> userRepository.save(user.setPassword(encoded)))
+                                    .doOnNext(login -> eventPublisher.publishEvent(new LoginChangedEvent(login.getEmail())))
+                                    .zipWith(auditLogger.logChangePassword(tuple.getT2().getName()), (login, event) -> login)
+                                    .map(login -> new ChangepassResponse(login.getEmail(), PASSWORD_UPDATEMSG));
+                        }));
+    }
+
+    /**
+     * controller entry point (routing handler) for the authenticated route /api/auth/token.
+     * issues a signed access token to the user, who authenticated with his credentials (HTTP Basic), to be used
+     * as "Authorization: Bearer" header on subsequent calls.
+     * @param request The ServerRequest with the user's principal
+     * @return a TokenResponse Json (200) as body of a ServerResponse or a 400 if authenticated by token already
+     */
+    public Mono<ServerResponse> issueToken(ServerRequest request) {
+        return request.principal()
+                .cast(Authentication.class)
+                .flatMap(authentication -> authentication instanceof AccessTokenAuthenticationToken
+                        ? Mono.error(new ServerWebInputException(TOKEN_NEEDS_CREDENTIALS_ERRORMSG))
+                        : ok().bodyValue(new TokenResponse(accessTokenService.issue(authentication), "Bearer",
+                                accessTokenService.getTtlSeconds())));
     }
-}
\ No newline at end of file
+}
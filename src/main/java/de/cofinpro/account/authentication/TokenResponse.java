@@ -0,0 +1,12 @@
+package de.cofinpro.account.authentication;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * immutable response object carrying a signed access token - for /api/auth/token endpoint
+ * @param expiresIn token lifetime in seconds
+ */
+public record TokenResponse(@JsonProperty("access_token") String accessToken,
+                            @JsonProperty("token_type") String tokenType,
+                            @JsonProperty("expires_in") long expiresIn) {
+}
@@ -0,0 +1,61 @@
+package de.cofinpro.account.breach;
+
+/**
+ * simple on-heap Bloom filter over SHA-1 hashes, used as fast negative path in front of the breach corpus.
+ * As the keys are cryptographic hashes already, the k bit positions are derived directly from the hash bytes by
+ * double hashing (Kirsch-Mitzenmacher) - no further hashing is needed.
+ * Writes (put) are not thread-safe - the filter is filled completely before it is published for reads.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * create a filter sized for the expected number of entries and false positive probability.
+     */
+    public BloomFilter(long expectedEntries, double falsePositiveProbability) {
+        long entries = Math.max(1, expectedEntries);
+        long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+        this.bits = new long[Math.toIntExact(bitCount / 64)];
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / entries * Math.log(2)));
+    }
+
+    /**
+     * add a SHA-1 hash given by its leading 16 bytes as two longs.
+     */
+    public void put(long hashHigh, long hashLow) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashHigh, hashLow, i);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * check if a SHA-1 hash given by its leading 16 bytes may be contained.
+     * @return false if definitely not contained, true if possibly contained.
+     */
+    public boolean mightContain(long hashHigh, long hashLow) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashHigh, hashLow, i);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private long index(long hashHigh, long hashLow, int i) {
+        return Long.remainderUnsigned(hashHigh + i * hashLow, bitCount);
+    }
+}
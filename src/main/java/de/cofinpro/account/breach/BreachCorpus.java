@@ -0,0 +1,173 @@
+package de.cofinpro.account.breach;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * read-only view on an indexed breach corpus file, as written by the BreachCorpusBuilder. The file is memory-mapped
+ * (in segments, as a single mapping is limited to 2 GB) - so hundreds of millions of hashes do not touch the heap.
+ * File format: 16 byte header (magic "BRCH", int version, long record count) followed by the ascending sorted,
+ * distinct 20 byte SHA-1 hashes. On load, a 2^16 entry prefix index on the first two hash bytes is built, which
+ * narrows every lookup to a binary search over a small record range. Instances are immutable and thread-safe.
+ */
+public class BreachCorpus {
+
+    static final int MAGIC = 0x42524348;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int HASH_SIZE = 20;
+
+    private static final int PREFIX_BUCKETS = 1 << 16;
+    private static final long RECORDS_PER_SEGMENT = Integer.MAX_VALUE / HASH_SIZE;
+
+    private final Path path;
+    private final long recordCount;
+    private final MappedByteBuffer[] segments;
+    private final long[] prefixIndex = new long[PREFIX_BUCKETS + 1];
+
+    private BreachCorpus(Path path, long recordCount, MappedByteBuffer[] segments) {
+        this.path = path;
+        this.recordCount = recordCount;
+        this.segments = segments;
+    }
+
+    /**
+     * memory-map the given corpus file and build the prefix index.
+     * @param path corpus file in the BreachCorpusBuilder format
+     * @return the loaded corpus
+     * @throws IOException if the file cannot be read or has no valid header
+     */
+    public static BreachCorpus load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read complete header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a breach corpus file: " + path);
+            }
+            long recordCount = header.getLong();
+            if (channel.size() != HEADER_SIZE + recordCount * HASH_SIZE) {
+                throw new IOException("Corrupt breach corpus file (size mismatch): " + path);
+            }
+            int segmentCount = (int) ((recordCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long firstRecord = i * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, recordCount - firstRecord);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRecord * HASH_SIZE,
+                        records * HASH_SIZE);
+            }
+            BreachCorpus corpus = new BreachCorpus(path, recordCount, segments);
+            corpus.buildPrefixIndex();
+            return corpus;
+        }
+    }
+
+    /**
+     * fill the given Bloom filter with all hashes of this corpus (one sequential scan).
+     */
+    public void fill(BloomFilter bloomFilter) {
+        for (long record = 0; record < recordCount; record++) {
+            bloomFilter.put(high(record), low(record));
+        }
+    }
+
+    /**
+     * check if the SHA-1 hash given by its three big-endian parts (8 + 8 + 4 bytes) is contained in the corpus.
+     */
+    public boolean contains(long hashHigh, long hashLow, int hashTail) {
+        int prefix = (int) (hashHigh >>> 48);
+        long low = prefixIndex[prefix];
+        long high = prefixIndex[prefix + 1] - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int comparison = compare(middle, hashHigh, hashLow, hashTail);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * check if the given password's SHA-1 hash is contained in the corpus (convenience without Bloom filter).
+     */
+    public boolean containsPassword(String password) {
+        ByteBuffer hash = ByteBuffer.wrap(sha1(password));
+        return contains(hash.getLong(), hash.getLong(), hash.getInt());
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * SHA-1 digest of the password's UTF-8 bytes.
+     */
+    public static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 not available", exception);
+        }
+    }
+
+    private void buildPrefixIndex() {
+        long record = 0;
+        for (int prefix = 0; prefix < PREFIX_BUCKETS; prefix++) {
+            prefixIndex[prefix] = record;
+            while (record < recordCount && (int) (high(record) >>> 48) == prefix) {
+                record++;
+            }
+        }
+        prefixIndex[PREFIX_BUCKETS] = recordCount;
+    }
+
+    private int compare(long record, long hashHigh, long hashLow, int hashTail) {
+        int comparison = Long.compareUnsigned(high(record), hashHigh);
+        if (comparison == 0) {
+            comparison = Long.compareUnsigned(low(record), hashLow);
+        }
+        if (comparison == 0) {
+            comparison = Integer.compareUnsigned(tail(record), hashTail);
+        }
+        return comparison;
+    }
+
+    private long high(long record) {
+        return segment(record).getLong(offset(record));
+    }
+
+    private long low(long record) {
+        return segment(record).getLong(offset(record) + 8);
+    }
+
+    private int tail(long record) {
+        return segment(record).getInt(offset(record) + 16);
+    }
+
+    private MappedByteBuffer segment(long record) {
+        return segments[(int) (record / RECORDS_PER_SEGMENT)];
+    }
+
+    private static int offset(long record) {
+        return (int) (record % RECORDS_PER_SEGMENT) * HASH_SIZE;
+    }
+}
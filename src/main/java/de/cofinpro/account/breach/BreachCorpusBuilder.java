@@ -0,0 +1,189 @@
+package de.cofinpro.account.breach;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * command line tool, that converts a plain list of breached passwords into the indexed BreachCorpus format.
+ * Each input line is either a plaintext password or an already hashed entry in the common "SHA1-HEX[:count]" form.
+ * Lines are hashed, sorted in chunks of bounded size, spilled to temp files and k-way merged with duplicate removal -
+ * so the heap needed does not depend on the size of the list.
+ * The corpus is written to a temp file and atomically moved to the target at the end, so that a running
+ * application can hot reload it safely.
+ * <pre>usage: java -cp account-reactive.jar de.cofinpro.account.breach.BreachCorpusBuilder input.txt corpus.bin [chunkSize]</pre>
+ */
+public class BreachCorpusBuilder {
+
+    private static final Pattern SHA1_HEX_LINE = Pattern.compile("(?i)[0-9a-f]{40}(:\\d+)?");
+    private static final int DEFAULT_CHUNK_SIZE = 4_000_000;
+
+    private final int chunkSize;
+
+    public BreachCorpusBuilder(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BreachCorpusBuilder <password-list> <corpus-file> [chunk-size]");
+            System.exit(1);
+        }
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_SIZE;
+        long count = new BreachCorpusBuilder(chunkSize).build(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("%d distinct hashes written to %s%n", count, args[1]);
+    }
+
+    /**
+     * build the corpus file from the given password list.
+     * @return number of distinct hashes written
+     */
+    public long build(Path passwordList, Path corpusFile) throws IOException {
+        List<Path> chunks = new ArrayList<>();
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(passwordList, StandardCharsets.UTF_8)) {
+                List<byte[]> chunk = new ArrayList<>(Math.min(chunkSize, 1 << 20));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        chunk.add(hash(line));
+                    }
+                    if (chunk.size() == chunkSize) {
+                        chunks.add(spill(chunk));
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    chunks.add(spill(chunk));
+                }
+            }
+            Path target = corpusFile.toAbsolutePath();
+            Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            long count = merge(chunks, tempFile);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            for (Path chunk : chunks) {
+                Files.deleteIfExists(chunk);
+            }
+        }
+    }
+
+    private static byte[] hash(String line) {
+        String trimmed = line.strip();
+        if (SHA1_HEX_LINE.matcher(trimmed).matches()) {
+            return HexFormat.of().parseHex(trimmed, 0, 40);
+        }
+        return BreachCorpus.sha1(line);
+    }
+
+    private static Path spill(List<byte[]> chunk) throws IOException {
+        chunk.sort(Arrays::compareUnsigned);
+        Path chunkFile = Files.createTempFile("breach-chunk", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chunkFile)))) {
+            for (byte[] hash : chunk) {
+                out.write(hash);
+            }
+        }
+        return chunkFile;
+    }
+
+    /**
+     * k-way merge of the sorted chunk files into the corpus file - duplicates are written once only.
+     */
+    private static long merge(List<Path> chunks, Path corpusFile) throws IOException {
+        PriorityQueue<ChunkReader> queue = new PriorityQueue<>((a, b) -> Arrays.compareUnsigned(a.current, b.current));
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(corpusFile, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path chunk : chunks) {
+                ChunkReader reader = new ChunkReader(chunk);
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            channel.position(BreachCorpus.HEADER_SIZE);
+            try (BufferedOutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+                byte[] previous = null;
+                while (!queue.isEmpty()) {
+                    ChunkReader reader = queue.poll();
+                    if (previous == null || !Arrays.equals(previous, reader.current)) {
+                        previous = reader.current.clone();
+                        out.write(previous);
+                        count++;
+                    }
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                out.flush();
+                writeHeader(channel, count);
+            }
+        } finally {
+            queue.forEach(ChunkReader::close);
+        }
+        return count;
+    }
+
+    private static void writeHeader(FileChannel channel, long count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BreachCorpus.HEADER_SIZE)
+                .putInt(BreachCorpus.MAGIC).putInt(BreachCorpus.VERSION).putLong(count).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, BreachCorpus.HEADER_SIZE - header.remaining());
+        }
+        channel.force(true);
+    }
+
+    /**
+     * sequential reader of one sorted chunk file with the current hash as merge key.
+     */
+    private static class ChunkReader {
+
+        private final DataInputStream in;
+        private final byte[] current = new byte[BreachCorpus.HASH_SIZE];
+
+        ChunkReader(Path chunk) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(chunk), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                in.readFully(current);
+                return true;
+            } catch (EOFException endOfChunk) {
+                return false;
+            }
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package de.cofinpro.account.breach;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * breach-check engine: checks passwords against the small built-in set of known breached passwords and - if
+ * account.breach.corpus-file is configured - against a large corpus in the BreachCorpus format.
+ * An on-heap Bloom filter built from the corpus on load serves as fast negative path, only possible hits are
+ * confirmed by a binary search in the memory-mapped corpus file.
+ * The corpus file is loaded in the background after startup, then watched (modification time and size, every
+ * account.breach.reload-interval) and hot reloaded without restart - a new corpus is atomically swapped in.
+ */
+@Component
+@Slf4j
+public class BreachedPasswordChecker implements DisposableBean {
+
+    private static final Set<String> BUILT_IN_BREACHED_PASSWORDS = Set.of("PasswordForJanuary", "PasswordForFebruary",
+            "PasswordForMarch", "PasswordForApril", "PasswordForMay", "PasswordForJune", "PasswordForJuly",
+            "PasswordForAugust", "PasswordForSeptember", "PasswordForOctober", "PasswordForNovember",
+            "PasswordForDecember");
+
+    private final Path corpusFile;
+    private final double bloomFalsePositiveProbability;
+    private final AtomicReference<LoadedCorpus> loadedCorpus = new AtomicReference<>();
+    private final Disposable reloadTask;
+
+    public BreachedPasswordChecker(@Value("${account.breach.corpus-file:}") String corpusFile,
+                                   @Value("${account.breach.bloom-fpp:0.01}") double bloomFalsePositiveProbability,
+                                   @Value("${account.breach.reload-interval:1m}") Duration reloadInterval) {
+        this.corpusFile = corpusFile.isBlank() ? null : Path.of(corpusFile);
+        this.bloomFalsePositiveProbability = bloomFalsePositiveProbability;
+        this.reloadTask = this.corpusFile == null ? null
+                : Flux.interval(Duration.ZERO, reloadInterval, Schedulers.boundedElastic())
+                        .subscribe(tick -> reloadIfModified());
+    }
+
+    /**
+     * checks a provided password against the built-in set and the loaded breach corpus.
+     * @param password to check
+     * @return check result (true, if password is breached)
+     */
+    public boolean isBreached(String password) {
+        if (password == null) {
+            return false;
+        }
+        if (BUILT_IN_BREACHED_PASSWORDS.contains(password)) {
+            return true;
+        }
+        LoadedCorpus corpus = loadedCorpus.get();
+        return corpus != null && corpus.contains(password);
+    }
+
+    /**
+     * number of hashes in the currently loaded corpus (0 if none).
+     */
+    public long corpusSize() {
+        LoadedCorpus corpus = loadedCorpus.get();
+        return corpus == null ? 0 : corpus.corpus().size();
+    }
+
+    /**
+     * (re-)load the corpus file, if it is new or changed since the last load. Load errors are logged and the
+     * previous corpus stays active.
+     */
+    void reloadIfModified() {
+        try {
+            if (!Files.isRegularFile(corpusFile)) {
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(corpusFile);
+            long size = Files.size(corpusFile);
+            LoadedCorpus current = loadedCorpus.get();
+            if (current != null && Objects.equals(current.modified(), modified) && current.fileSize() == size) {
+                return;
+            }
+            loadedCorpus.set(load(modified, size));
+            log.info("breach corpus {} loaded with {} hashes", corpusFile, corpusSize());
+        } catch (IOException | RuntimeException exception) {
+            log.error("loading breach corpus {} failed - keeping previous one", corpusFile, exception);
+        }
+    }
+
+    private LoadedCorpus load(FileTime modified, long size) throws IOException {
+        BreachCorpus corpus = BreachCorpus.load(corpusFile);
+        BloomFilter bloomFilter = new BloomFilter(corpus.size(), bloomFalsePositiveProbability);
+        corpus.fill(bloomFilter);
+        return new LoadedCorpus(corpus, bloomFilter, modified, size);
+    }
+
+    @Override
+    public void destroy() {
+        if (reloadTask != null) {
+            reloadTask.dispose();
+        }
+    }
+
+    private record LoadedCorpus(BreachCorpus corpus, BloomFilter bloomFilter, FileTime modified, long fileSize) {
+
+        boolean contains(String password) {
+            ByteBuffer hash = ByteBuffer.wrap(BreachCorpus.sha1(password));
+            long high = hash.getLong();
+            long low = hash.getLong();
+            return bloomFilter.mightContain(high, low) && corpus.contains(high, low, hash.getInt());
+        }
+    }
+}
@@ -11,17 +11,41 @@ public class AccountConfiguration {
 
     public static final String PERIOD_REGEX = "(0[1-9]|1[0-2])-[1-9]\\d{3}";
 
+    public static final String WRONG_DATE_ERRORMSG = "Wrong Date: Use mm-yyyy format!";
+
+    public static final String PERIOD_WITH_RANGE_ERRORMSG = "Use either period or from and to - not both!";
+
+    public static final String INVALID_PERIOD_RANGE_ERRORMSG = "Invalid period range: from must not be after to!";
+
     public static final String NO_SUCH_EMPLOYEE_ERRORMSG = "No such employee registered!";
 
+    public static final String SALARY_KEY_REQUIRED_ERRORMSG = "Request parameters employee and period are required!";
+
     public static final String NO_SUCH_SALES_RECORD_ERRORMSG = "No such record found for this employee and period!";
 
     public static final String RECORD_ALREADY_EXISTS_ERRORMSG = "A record already exists for this employee and period! Use PUT!";
 
+    public static final String VERSION_MISMATCH_ERRORMSG = "The record was changed meanwhile - version does not match!";
+
+    public static final String INVALID_IF_MATCH_ERRORMSG = "If-Match must hold one version as quoted ETag!";
+
     public static final String DUPLICATE_RECORDS_ERRORMSG = "Duplicate record for same employee and period provided!";
 
+    public static final String CONCURRENT_CHANGE_ERRORMSG = "Records conflict with a concurrent change - please retry!";
+
     public static final String ADDED_SUCCESSFULLY = "Added successfully!";
 
     public static final String UPDATED_SUCCESSFULLY = "Updated successfully!";
 
     public static final String RECORDMSG_START = "Record %d: %s";
+
+    public static final String INVALID_COMMIT_MODE_ERRORMSG = "Invalid commit mode: use all or chunk!";
+
+    public static final String INGESTION_FAILED_ERRORMSG = "Ingestion failed - nothing of the upload saved!";
+
+    public static final String NO_SUCH_IMPORT_JOB_ERRORMSG = "No such import job found!";
+
+    public static final String IMPORT_QUEUE_FULL_ERRORMSG = "Too many import jobs queued - please retry later!";
+
+    public static final String IMPORT_TOO_LARGE_ERRORMSG = "Too many records for one import job - at most %d allowed!";
 }
@@ -0,0 +1,25 @@
+package de.cofinpro.account.configuration;
+
+/**
+ * configuration collection for the audit endpoints.
+ */
+public class AuditConfiguration {
+
+    private AuditConfiguration() {
+        // no instances
+    }
+
+    public static final int DEFAULT_EVENTS_PAGE_SIZE = 100;
+
+    public static final int MAX_EVENTS_PAGE_SIZE = 1000;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    public static final String INVALID_QUERY_PARAM_ERRORMSG = "Invalid query parameter %s: '%s'!";
+
+    public static final String INVALID_LIMIT_ERRORMSG = "Limit must be between 1 and " + MAX_EVENTS_PAGE_SIZE + "!";
+
+    public static final String INVALID_DATE_RANGE_ERRORMSG = "Date range 'from' must not be after 'to'!";
+}
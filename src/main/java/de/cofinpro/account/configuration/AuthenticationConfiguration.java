@@ -1,33 +1,29 @@
 package de.cofinpro.account.configuration;
 
-import de.cofinpro.account.persistence.*;
+import de.cofinpro.account.security.LoginCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Set;
-
 /**
- * collection of authentication related beans and configuration stuff as constants for the authentication endpoints,
- * breached passwords set and check-method.
+ * collection of authentication related beans and configuration stuff as constants for the authentication endpoints.
+ * The breached passwords check is done by the BreachedPasswordChecker.
  */
 @Configuration
 public class AuthenticationConfiguration {
 
     /**
-     * UserDetailsService bean, that just delegates the retrieval to the LoginReactiveRepository
-     * (functional interface implementation of the findByUsername - method).
+     * UserDetailsService bean, that just delegates the retrieval to the LoginCache, which loads from the
+     * LoginReactiveRepository on a miss (functional interface implementation of the findByUsername - method).
      * NOTE: the bean is instantiated by the Spring framework internally...
-     * @param users the Login Reactive repository
+     * @param loginCache the principal cache
      * @return UserDetailsService instance (anonymous via method-reference).
      */
     @Bean
-    public ReactiveUserDetailsService userDetailsService(LoginReactiveRepository users,
-                                                         LoginRoleReactiveRepository roles) {
-        return email -> users.findByEmail(email)
-                .zipWith(roles.findRolesByEmail(email), Login::setRoles);
+    public ReactiveUserDetailsService userDetailsService(LoginCache loginCache) {
+        return loginCache::findByEmail;
     }
 
     @Bean
@@ -35,19 +31,6 @@ public class AuthenticationConfiguration {
         return new BCryptPasswordEncoder(BCRYPT_STRENGTH);
     }
 
-    /**
-     * checks a provided password against a collection of known breached passwords.
-     * @param password to check
-     * @return check result (true, if password is breached)
-     */
-    public static boolean passwordIsHacked(String password) {
-        return breachedPasswords.contains(password);
-    }
-
-    private static final Set<String> breachedPasswords = Set.of("PasswordForJanuary", "PasswordForFebruary",
-            "PasswordForMarch", "PasswordForApril", "PasswordForMay", "PasswordForJune", "PasswordForJuly", "PasswordForAugust",
-            "PasswordForSeptember", "PasswordForOctober", "PasswordForNovember", "PasswordForDecember");
-
     public static final int BCRYPT_STRENGTH = 7;
 
     public static final int MIN_PASSWORD_LENGTH = 12;
@@ -64,4 +47,11 @@ public class AuthenticationConfiguration {
     public static final String SAME_PASSWORD_ERRORMSG = "The passwords must be different!";
 
     public static final String PASSWORD_UPDATEMSG = "The password has been updated successfully";
+
+    public static final String INVALID_TOKEN_ERRORMSG = "Invalid or expired token!";
+
+    public static final String TOKEN_NEEDS_CREDENTIALS_ERRORMSG = "A token can only be issued on user credentials!";
+
+    public static final String SERVER_BUSY_ERRORMSG = "Server busy - please retry later!";
+    public static final String TOO_MANY_REQUESTS_ERRORMSG = "Too many requests - please retry later!";
 }
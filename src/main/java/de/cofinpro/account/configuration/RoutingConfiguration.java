@@ -2,6 +2,7 @@ package de.cofinpro.account.configuration;
 
 import de.cofinpro.account.audit.AuditHandler;
 import de.cofinpro.account.domain.AccountHandler;
+import de.cofinpro.account.domain.PayrollReportHandler;
 import de.cofinpro.account.authentication.AuthenticationHandler;
 import de.cofinpro.account.admin.AdminHandler;
 import org.springframework.context.annotation.Bean;
@@ -21,9 +22,11 @@ public class RoutingConfiguration {
     public RouterFunction<ServerResponse> routes(AuthenticationHandler authenticationHandler,
                                                  AccountHandler accountHandler,
                                                  AdminHandler adminHandler,
-                                                 AuditHandler auditHandler) {
+                                                 AuditHandler auditHandler,
+                                                 PayrollReportHandler reportHandler) {
         return route().add(authenticationRoutes(authenticationHandler))
                 .add(accountRoutes(accountHandler))
+                .add(reportRoutes(reportHandler))
                 .add(adminRoutes(adminHandler))
                 .add(auditRoutes(auditHandler))
                 .build();
@@ -36,6 +39,8 @@ public class RoutingConfiguration {
     private RouterFunction<ServerResponse> auditRoutes(AuditHandler auditHandler) {
         return route()
                 .GET("/api/security/events", auditHandler::getAuditEvents)
+                .GET("/api/security/events/stream", auditHandler::streamAuditEvents)
+                .GET("/api/security/stats", auditHandler::getAuditStatistics)
                 .build();
     }
 
@@ -47,6 +52,7 @@ public class RoutingConfiguration {
         return route()
                 .POST("/api/auth/signup", authenticationHandler::signup)
                 .POST("/api/auth/changepass", authenticationHandler::changePassword)
+                .POST("/api/auth/token", authenticationHandler::issueToken)
                 .build();
     }
 
@@ -70,8 +76,25 @@ public class RoutingConfiguration {
     private RouterFunction<ServerResponse> accountRoutes(AccountHandler accountHandler) {
         return route()
                 .GET("/api/empl/payment", accountHandler::accessPayrolls)
+                .GET("/api/acct/payments", accountHandler::getPayroll)
                 .POST("/api/acct/payments", accountHandler::uploadPayrolls)
+                .POST("/api/acct/payments/stream", accountHandler::ingestPayrolls)
                 .PUT("/api/acct/payments", accountHandler::changePayrolls)
+                .PUT("/api/acct/payments/bulk", accountHandler::bulkChangePayrolls)
+                .POST("/api/acct/imports", accountHandler::submitImport)
+                .GET("/api/acct/imports/{id}", accountHandler::getImport)
+                .build();
+    }
+
+    /**
+     * route handling for the payroll report routes
+     * @param reportHandler handler
+     */
+    private RouterFunction<ServerResponse> reportRoutes(PayrollReportHandler reportHandler) {
+        return route()
+                .GET("/api/acct/reports/period/{period}", reportHandler::getPeriodReport)
+                .GET("/api/acct/reports/periods", reportHandler::getPeriodReports)
+                .GET("/api/acct/reports/employees", reportHandler::getEmployeeReports)
                 .build();
     }
 }
\ No newline at end of file
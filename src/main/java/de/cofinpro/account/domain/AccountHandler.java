@@ -1,215 +1,372 @@
 package de.cofinpro.account.domain;
 
-import de.cofinpro.account.persistence.Login;
-import de.cofinpro.account.persistence.LoginReactiveRepository;
 import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryBulkInserter;
+import de.cofinpro.account.persistence.SalaryChangedEvent;
 import de.cofinpro.account.persistence.SalaryReactiveRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.validation.BeanPropertyBindingResult;
-import org.springframework.validation.Errors;
-import org.springframework.validation.Validator;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static de.cofinpro.account.configuration.AccountConfiguration.*;
-import static java.lang.Boolean.FALSE;
-import static java.lang.Boolean.TRUE;
 import static java.util.function.Predicate.not;
-import static org.springframework.data.domain.Sort.Direction.ASC;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
 /**
- * service layer handler class for all domain (account) specific endpoints /api/empl/payment (GET) and
- * /api/acct/payments (POST and PUT).
+ * service layer handler class for all domain (account) specific endpoints /api/empl/payment (GET),
+ * /api/acct/payments (GET, POST and PUT), /api/acct/payments/stream (POST), /api/acct/payments/bulk (PUT) and
+ * /api/acct/imports (POST and GET).
  */
 @Service
 @Slf4j
 public class AccountHandler {
 
-    private final LoginReactiveRepository userRepository;
+    private final PayslipCache payslipCache;
     private final SalaryReactiveRepository salaryRepository;
-    private final Validator validator;
+    private final SalaryBulkInserter bulkInserter;
+    private final SalaryUploadValidator uploadValidator;
+    private final PayrollIngestion payrollIngestion;
+    private final PayrollImports payrollImports;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AccountHandler(LoginReactiveRepository userRepository,
+    public AccountHandler(PayslipCache payslipCache,
                           SalaryReactiveRepository salaryRepository,
-                          Validator validator) {
-        this.userRepository = userRepository;
+                          SalaryBulkInserter bulkInserter,
+                          SalaryUploadValidator uploadValidator,
+                          PayrollIngestion payrollIngestion,
+                          PayrollImports payrollImports,
+                          TransactionalOperator transactionalOperator,
+                          ApplicationEventPublisher eventPublisher) {
+        this.payslipCache = payslipCache;
         this.salaryRepository = salaryRepository;
-        this.validator = validator;
+        this.bulkInserter = bulkInserter;
+        this.uploadValidator = uploadValidator;
+        this.payrollIngestion = payrollIngestion;
+        this.payrollImports = payrollImports;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * controller handler for GET endpoint /api/empl/payment available only to authenticated users. It gives access to
      * the payment data of the authenticated user.
-     * @param request the ServerRequest containing the user's principal data and an optional period request parameter.
+     * @param request the ServerRequest containing the user's principal data and either an optional period request
+     *                parameter or optional from and to request parameters of a period range (inclusive).
      * @return ServerResponse Mono with a list of SalaryResponse data as body
      */
     public Mono<ServerResponse> accessPayrolls(ServerRequest request) {
-        Optional<String> searchPeriod = request.queryParam("period");
-        if (searchPeriod.isPresent() && !searchPeriod.get().matches(PERIOD_REGEX)) {
-            return Mono.error(new ServerWebInputException("Wrong Date: Use mm-yyyy format!"));
+        Optional<PeriodRange> periodRange;
+        try {
+            periodRange = PeriodRange.fromQueryParams(request);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
         }
         return request.principal()
-                .flatMap(principal -> ok().body(selectSalaries(principal.getName(), searchPeriod),
+                .flatMap(principal -> ok().body(selectSalaries(principal.getName(), periodRange),
                 new ParameterizedTypeReference<>(){}));
     }
 
     /**
-     * select the requested salary information enriched with Login-table data from the database.
+     * select the requested salary information enriched with Login-table data from the payslip cache.
      * @param email the authenticated user's email
-     * @param searchPeriod Optional containing a possible request parameter on the period - may be empty
+     * @param periodRange Optional containing the requested period range - empty for all periods
      * @return Mono holding the result as list of SalaryResponse object to be presented to the user
      */
-    private Mono<List<SalaryResponse>> selectSalaries(String email, Optional<String> searchPeriod) {
-            return userRepository.findByEmail(email).ofType(Login.class)
-                    .flatMap(login -> searchPeriod.map(month -> salaryRepository
-                            .findByEmployeeAndPeriod(email, Salary.yearFirst(month))
-                            .map(salary -> List.of(SalaryResponse.fromLoginAndSalary(salary, login)))
-                            .defaultIfEmpty(List.of()))
-                            .orElseGet(() -> salaryRepository.findAllByEmail(email, Sort.by(ASC, "period"))
-                            .map(salary -> SalaryResponse.fromLoginAndSalary(salary, login))
-                            .collectList())
-                    );
+    private Mono<List<SalaryResponse>> selectSalaries(String email, Optional<PeriodRange> periodRange) {
+        return periodRange
+                .map(range -> payslipCache.findPayslips(email, range.from(), range.to()))
+                .orElseGet(() -> payslipCache.findPayslips(email).map(payslips -> List.copyOf(payslips.values())));
+    }
+
+    /**
+     * controller handler for GET endpoint /api/acct/payments available to ACCOUNTANT role. It reads the salary of an
+     * employee and period given by the request parameters employee and period (mm-yyyy) - with its version as ETag,
+     * to be sent as If-Match header of a conditional PUT.
+     * @return ServerResponse Mono with the SalaryRecord as body and the version as ETag - or error Mono, if the
+     *         parameters are invalid or no such salary exists
+     */
+    public Mono<ServerResponse> getPayroll(ServerRequest request) {
+        Optional<String> employee = request.queryParam("employee");
+        Optional<String> period = request.queryParam("period");
+        if (employee.isEmpty() || period.isEmpty()) {
+            return Mono.error(new ServerWebInputException(SALARY_KEY_REQUIRED_ERRORMSG));
+        }
+        if (!period.get().matches(PERIOD_REGEX)) {
+            return Mono.error(new ServerWebInputException(WRONG_DATE_ERRORMSG));
+        }
+        return salaryRepository.findByEmployeeAndPeriod(employee.get(), Salary.periodIndex(period.get()))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        NO_SUCH_SALES_RECORD_ERRORMSG)))
+                .flatMap(salary -> ok().eTag(String.valueOf(salary.getVersion()))
+                        .bodyValue(new SalaryRecord(salary.getEmail(), Salary.periodText(salary.getPeriod()),
+                                salary.getMonthlySalary())));
     }
 
     /**
      * controller handler for PUT endpoint /api/acct/payments available unauthenticated.
-     * It initiates an update of the salary for a given employee and period (= month).
+     * It initiates an update of the salary for a given employee and period (= month). An If-Match header with the
+     * salary's version (ETag of GET /api/acct/payments or of the previous PUT response) makes the update conditional - optimistic concurrency.
      * @param request the ServerRequest containing the SalaryRecord data to update.
-     * @return ServerResponse Mono with a success status or Error Mono if validation went wrong or data to update not found
+     * @return ServerResponse Mono with a success status and the new version as ETag or Error Mono if validation went
+     *         wrong, data to update not found or the version does not match (412)
      */
     public Mono<ServerResponse> changePayrolls(ServerRequest request) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatchVersion(request);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
         return request.bodyToMono(SalaryRecord.class)
-                .flatMap(salaryRecord -> ok().body(validateAndUpdate(salaryRecord), StatusResponse.class));
+                .flatMap(salaryRecord -> validateAndUpdate(salaryRecord, expectedVersion))
+                .flatMap(version -> ok().eTag(String.valueOf(version))
+                        .bodyValue(new StatusResponse(UPDATED_SUCCESSFULLY)));
+    }
+
+    /**
+     * controller handler for PUT endpoint /api/acct/payments/bulk available unauthenticated.
+     * It updates the salaries of an array of salary records in one transaction - either all given records are
+     * updated or none.
+     * @param request the ServerRequest containing the SalaryRecord data array to update.
+     * @return ServerResponse Mono with an informative success status if all records were updated
+     *         or error Mono containing all errors (format errors, resp. records not found) else.
+     */
+    public Mono<ServerResponse> bulkChangePayrolls(ServerRequest request) {
+        return request.bodyToFlux(SalaryRecord.class)
+                .collectList()
+                .flatMap(this::validateAndUpdateAll)
+                .flatMap(status -> ok().bodyValue(status));
     }
 
     /**
-     * method called by PUT entrypoint, that hibernate validates the received SalaryRecord, checks
-     * if it can be updated (e.g. a database entry exists for employee + period) and updates the salary.
+     * hibernate validates all records and updates them in chunks of batched UPDATE statements. Records without a
+     * database entry for employee + period are reported and roll the whole transaction back.
+     * @return Mono with StatusResponse on updated entry count - or error message filled Mono
+     */
+    private Mono<StatusResponse> validateAndUpdateAll(List<SalaryRecord> salaryRecords) {
+        String formatErrors = IntStream.range(0, salaryRecords.size())
+                .mapToObj(i -> Tuples.of(i, uploadValidator.validateFormat(salaryRecords.get(i))))
+                .filter(tuple -> !tuple.getT2().isEmpty())
+                .map(tuple -> RECORDMSG_START.formatted(tuple.getT1(), tuple.getT2()))
+                .collect(Collectors.joining(" | "));
+        if (!formatErrors.isEmpty()) {
+            return Mono.error(new ServerWebInputException(formatErrors));
+        }
+        if (salaryRecords.stream().map(salaryRecord -> salaryRecord.employee().toLowerCase(Locale.ROOT)
+                + salaryRecord.period()).distinct().count() < salaryRecords.size()) {
+            return Mono.error(new ServerWebInputException(DUPLICATE_RECORDS_ERRORMSG));
+        }
+        return Flux.fromIterable(salaryRecords)
+                .map(Salary::fromSalaryRecord)
+                .buffer(uploadValidator.chunkSize())
+                .concatMap(salaryRepository::updateAll)
+                .collectList()
+                .flatMap(rowsUpdated -> {
+                    String notFound = IntStream.range(0, rowsUpdated.size())
+                            .filter(i -> rowsUpdated.get(i) == 0)
+                            .mapToObj(i -> RECORDMSG_START.formatted(i, NO_SUCH_SALES_RECORD_ERRORMSG))
+                            .collect(Collectors.joining(" | "));
+                    return notFound.isEmpty()
+                            ? Mono.just(new StatusResponse("%d records %s".formatted(rowsUpdated.size(),
+                                    UPDATED_SUCCESSFULLY)))
+                            : Mono.<StatusResponse>error(new ServerWebInputException(notFound));
+                })
+                .as(transactionalOperator::transactional)
+                .doOnNext(status -> publishSalaryChanged(salaryRecords));
+    }
+
+    /**
+     * method called by PUT entrypoint, that hibernate validates the received SalaryRecord and updates the salary
+     * with one conditional UPDATE statement - no row updated means no database entry exists for employee + period
+     * (or the version does not match).
      * @param salaryRecord the data to update
-     * @return Mono with StatusResponse if updated or error Mono else
+     * @param expectedVersion version from the If-Match header - null if none
+     * @return Mono with the new version if updated or error Mono else
      */
-    private Mono<StatusResponse> validateAndUpdate(SalaryRecord salaryRecord) {
-        String hibernateValidationErrors = validateHibernate(salaryRecord);
+    private Mono<Long> validateAndUpdate(SalaryRecord salaryRecord, Long expectedVersion) {
+        String hibernateValidationErrors = uploadValidator.validateFormat(salaryRecord);
         if (!hibernateValidationErrors.isEmpty()) {
             return Mono.error(new ServerWebInputException(hibernateValidationErrors));
         }
-        return salaryRepository
-                .findByEmployeeAndPeriod(salaryRecord.employee(), Salary.yearFirst(salaryRecord.period()))
-                .defaultIfEmpty(Salary.empty())
-                .flatMap(salary ->
-                        salary.isEmpty() ? Mono.error(new ServerWebInputException(NO_SUCH_SALES_RECORD_ERRORMSG))
-                                : salaryRepository.save(salary.setMonthlySalary(salaryRecord.salary()))
-                                .map(saved -> new StatusResponse(UPDATED_SUCCESSFULLY))
-                );
+        int period = Salary.periodIndex(salaryRecord.period());
+        return salaryRepository.updateSalary(salaryRecord.employee(), period, salaryRecord.salary(), expectedVersion)
+                .doOnNext(version -> publishSalaryChanged(List.of(salaryRecord)))
+                .switchIfEmpty(Mono.defer(() -> updateFailed(salaryRecord.employee(), period, expectedVersion)));
+    }
+
+    /**
+     * error path of a conditional update - only here the salary is read to tell a missing record from a version
+     * mismatch.
+     */
+    private Mono<Long> updateFailed(String email, int period, Long expectedVersion) {
+        Mono<Long> noSuchRecord = Mono.error(new ServerWebInputException(NO_SUCH_SALES_RECORD_ERRORMSG));
+        if (expectedVersion == null) {
+            return noSuchRecord;
+        }
+        return salaryRepository.findByEmployeeAndPeriod(email, period)
+                .flatMap(salary -> Mono.<Long>error(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                        VERSION_MISMATCH_ERRORMSG)))
+                .switchIfEmpty(noSuchRecord);
+    }
+
+    /**
+     * @return the version given by the If-Match header ("*" or none means no condition)
+     * @throws ServerWebInputException if the header is no single (optionally quoted) version number
+     */
+    private static Long ifMatchVersion(ServerRequest request) {
+        List<String> ifMatch = request.headers().header(HttpHeaders.IF_MATCH);
+        if (ifMatch.isEmpty() || "*".equals(ifMatch.get(0).strip())) {
+            return null;
+        }
+        String eTag = ifMatch.get(0).strip();
+        if (eTag.startsWith("W/")) {
+            eTag = eTag.substring(2);
+        }
+        if (ifMatch.size() > 1 || !eTag.matches("\"\\d{1,18}\"")) {
+            throw new ServerWebInputException(INVALID_IF_MATCH_ERRORMSG);
+        }
+        return Long.parseLong(eTag.substring(1, eTag.length() - 1));
     }
 
     /**
      * controller handler for POST endpoint /api/acct/payments available unauthenticated.
-     * It initiates a validation and save of an array of salary records given. Th method
-     * works Transactional - i.e. either all given records are added or none (-> may be rollback)
+     * It initiates a validation and save of an array of salary records given. The save runs in one transaction
+     * (TransactionalOperator - resolved before the response is built) - i.e. either all given records are added
+     * or none (-> may be rollback)
      * @param request the ServerRequest containing the SalaryRecord data  array to save.
      * @return ServerResponse Mono with an infirmative  success status if all records were added
      *         or error Mono containing all errors else.
      */
-    @Transactional
     public Mono<ServerResponse> uploadPayrolls(ServerRequest request) {
         return request.bodyToFlux(SalaryRecord.class)
-                .index().flatMap(this::validateAll)
                 .collectList()
-                .flatMap(list -> ok().body(saveSalaryRecord(list), StatusResponse.class));
+                .flatMap(this::saveSalaryRecords)
+                .flatMap(status -> ok().bodyValue(status));
     }
 
     /**
-     * hibernate and database validate (all users exist for records given, no entry in database for
-     * a given record) of the request body's flux of SalesRecords - enriched into tuples with Index for
-     * informative error messages.
-     * @param tuple Tuple2 of the array index (Long) and the associated SalaryRecord to validate
-     * @return a Mono containing a tuple of 1.) the original SalaryRecord plus 2.) an error string filled
-     *         with all validation error messages - or empty string if validation succeeded.
+     * controller handler for POST endpoint /api/acct/payments/stream for very large uploads (JSON array or NDJSON):
+     * the records are ingested chunk by chunk with bounded memory and a progress report per chunk is streamed back
+     * as NDJSON. Query parameter commit=all (default - all or nothing) or commit=chunk (per chunk commit).
+     * @param request the ServerRequest containing the SalaryRecord data to save.
+     * @return ServerResponse Mono with the flux of IngestionProgress reports
      */
-    private Mono<Tuple2<SalaryRecord, String>> validateAll(Tuple2<Long, SalaryRecord> tuple) {
-        String hibernateValidationErrors = validateHibernate(tuple.getT2());
-        Mono<String> errorMono = Mono.just(hibernateValidationErrors.isEmpty() ? ""
-                : RECORDMSG_START.formatted(tuple.getT1(), hibernateValidationErrors));
-        // only records of valid format are validated against the database
-        if (hibernateValidationErrors.isEmpty()) {
-            errorMono = validateWithDatabase(tuple.getT1(), tuple.getT2());
+    public Mono<ServerResponse> ingestPayrolls(ServerRequest request) {
+        PayrollIngestion.CommitMode commitMode;
+        try {
+            commitMode = commitMode(request);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
         }
-        return Mono.just(tuple.getT2()).zipWith(errorMono);
+        return ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(payrollIngestion.ingest(request.bodyToFlux(SalaryRecord.class), commitMode),
+                        IngestionProgress.class);
     }
 
     /**
-     * hibernate validate a received SalaryRecord by use of a Spring autowired Validator
-     * @param salaryRecord to validate
-     * @return empty String if validation passes - all errors joined with "&&" else...
+     * controller handler for POST endpoint /api/acct/imports: the received records are queued as asynchronous
+     * import job, that is processed like POST /api/acct/payments/stream (query parameter commit=all or chunk).
+     * @param request the ServerRequest containing the SalaryRecord data to save.
+     * @return ServerResponse Mono with 202 status, the job's status as body and its URI as location header -
+     *         or 413 error Mono, if the job has too many records - or 503 error Mono, if too many import jobs or
+     *         records are pending
      */
-    private String validateHibernate(SalaryRecord salaryRecord) {
-        Errors errors = new BeanPropertyBindingResult(salaryRecord, SalaryRecord.class.getName());
-        validator.validate(salaryRecord, errors);
-        return errors.hasErrors()
-                ? errors.getAllErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage)
-                    .collect(Collectors.joining(" && "))
-                : "";
+    public Mono<ServerResponse> submitImport(ServerRequest request) {
+        PayrollIngestion.CommitMode commitMode;
+        try {
+            commitMode = commitMode(request);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        return request.bodyToFlux(SalaryRecord.class)
+                .take(payrollImports.maxRecords() + 1L)
+                .collectList()
+                .map(salaryRecords -> payrollImports.submit(salaryRecords, commitMode))
+                .flatMap(status -> ServerResponse.accepted().location(URI.create("/api/acct/imports/" + status.id()))
+                        .bodyValue(status));
     }
 
     /**
-     * validate a received SalaryRecord versus database, if the user given exists and a record does not already exist
-     * @param salaryRecord to validate
-     * @param recordId the array index to include into the Mono error response.
-     * @return Mono with an empty String if validation passes - with error message else
+     * controller handler for GET endpoint /api/acct/imports/{id} to poll an import job's progress.
+     * @return ServerResponse Mono with the job's status (progress, throughput and per-record errors) - or 404 error
+     *         Mono, if the job is unknown or expired
      */
-    private Mono<String> validateWithDatabase(long recordId, SalaryRecord salaryRecord) {
-        return userRepository.findByEmail(salaryRecord.employee())
-                .hasElement()
-                .flatMap(hasUserElement -> {
-                    if (FALSE.equals(hasUserElement)) {
-                        return Mono.just(RECORDMSG_START.formatted(recordId, NO_SUCH_EMPLOYEE_ERRORMSG));
-                    } else {
-                        return salaryRepository
-                                .findByEmployeeAndPeriod(salaryRecord.employee(), Salary.yearFirst(salaryRecord.period()))
-                                .hasElement()
-                                .map(hasSalaryElement -> TRUE.equals(hasSalaryElement) ?
-                                        RECORDMSG_START.formatted(recordId, RECORD_ALREADY_EXISTS_ERRORMSG) : "");
-                    }});
+    public Mono<ServerResponse> getImport(ServerRequest request) {
+        return payrollImports.findStatus(request.pathVariable("id"))
+                .map(status -> ok().bodyValue(status))
+                .orElseGet(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        NO_SUCH_IMPORT_JOB_ERRORMSG)));
     }
 
     /**
-     * the flux of errormessage enriched SalaryRecords collected into a list is mapped to this
-     * save method, who creates an error Mono iff
-     *  1.) any of the contained tuples has a non empty error message -> "save all or none" OR
-     *  2.) all entries are error-free but duplicates exist regarding the combi of employee + period.
-     * If this is not the case, all entries are transactionally saved to the database
-     * @return Monon with StatusResponse on saved entry count - or error message filled Mono
+     * @return the commit mode given by the query parameter commit - all if none
+     * @throws ServerWebInputException if the parameter is neither all nor chunk
      */
-    private Mono<StatusResponse> saveSalaryRecord(List<Tuple2<SalaryRecord, String>> tuples) {
-        if (tuples.stream().anyMatch(not(tuple -> tuple.getT2().isEmpty()))) {
-            String joinedErrorMessage = tuples.stream().map(Tuple2::getT2)
-                    .filter(not(String::isEmpty)).collect(Collectors.joining(" | "));
-            return Mono.error(new ServerWebInputException(joinedErrorMessage));
+    private static PayrollIngestion.CommitMode commitMode(ServerRequest request) {
+        try {
+            return PayrollIngestion.CommitMode.valueOf(
+                    request.queryParam("commit").orElse("all").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new ServerWebInputException(INVALID_COMMIT_MODE_ERRORMSG);
         }
-        if (tuples.stream()
-                .map(Tuple2::getT1)
-                .collect(Collectors.groupingBy(salRec -> salRec.employee().toLowerCase() + salRec.period()))
-                .values().stream()
-                .map(List::size)
-                .anyMatch(s -> s > 1)) {
-            return Mono.error(new ServerWebInputException(DUPLICATE_RECORDS_ERRORMSG));
+    }
+
+    /**
+     * save the received records, if they are all of valid format. Unknown employees, records existing in the
+     * database and duplicates within the upload are rejected by the database constraints - the insert fails and
+     * the whole transaction is rolled back. Only then the records are diagnosed for the error message.
+     * @return Mono with StatusResponse on saved entry count - or error message filled Mono
+     */
+    private Mono<StatusResponse> saveSalaryRecords(List<SalaryRecord> salaryRecords) {
+        if (salaryRecords.stream().map(uploadValidator::validateFormat).anyMatch(not(String::isEmpty))) {
+            return rejectSalaryRecords(salaryRecords);
         }
-        return salaryRepository.saveAll(tuples.stream().map(Tuple2::getT1).map(Salary::fromSalaryRecord).toList())
-                .count()
-                .map(count -> new StatusResponse("%d records %s".formatted(count, ADDED_SUCCESSFULLY)));
+        return bulkInserter.insertAll(salaryRecords.stream().map(Salary::fromSalaryRecord).toList())
+                .as(transactionalOperator::transactional)
+                .doOnNext(count -> publishSalaryChanged(salaryRecords))
+                .map(count -> new StatusResponse("%d records %s".formatted(count, ADDED_SUCCESSFULLY)))
+                .onErrorResume(DataIntegrityViolationException.class,
+                        violation -> rejectSalaryRecords(salaryRecords));
+    }
+
+    /**
+     * @return error Mono with all validation errors of the records joined
+     */
+    private Mono<StatusResponse> rejectSalaryRecords(List<SalaryRecord> salaryRecords) {
+        List<Tuple2<Long, SalaryRecord>> indexedRecords = IntStream.range(0, salaryRecords.size())
+                .mapToObj(i -> Tuples.of((long) i, salaryRecords.get(i)))
+                .toList();
+        return uploadValidator.diagnose(indexedRecords)
+                .flatMap(errors -> Mono.error(new ServerWebInputException(String.join(" | ", errors))));
+    }
+
+    /**
+     * inform all listeners (e.g. the payslip cache), that the salaries of the records' employees have been committed.
+     */
+    private void publishSalaryChanged(List<SalaryRecord> salaryRecords) {
+        eventPublisher.publishEvent(new SalaryChangedEvent(salaryRecords.stream().map(SalaryRecord::employee)
+                .collect(Collectors.toSet())));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package de.cofinpro.account.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * immutable payroll report of one employee over a period range for the ACCOUNTANT endpoint
+ * /api/acct/reports/employees - amounts in cents, the average rounded to full cents.
+ * The total is a BigDecimal, as it may exceed the long range.
+ */
+public record EmployeeReport(String employee, long months, BigDecimal total, long minimum, long maximum, long average) {
+}
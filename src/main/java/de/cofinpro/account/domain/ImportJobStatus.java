@@ -0,0 +1,39 @@
+package de.cofinpro.account.domain;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * immutable status of an asynchronous payroll import job returned by POST /api/acct/imports and
+ * GET /api/acct/imports/{id}.
+ * @param id job id
+ * @param status state resp. outcome of the job
+ * @param records number of records submitted
+ * @param processed number of records validated and written (or rejected) so far
+ * @param committed number of records committed (resp. staged for commit=all) so far
+ * @param recordsPerSecond throughput of the processing so far - 0 while queued
+ * @param submitted time of submission
+ * @param started start of the processing - null while queued
+ * @param finished end of the processing - null until done
+ * @param errorCount number of error messages
+ * @param errors per-record error messages - the first ones up to a limit
+ */
+public record ImportJobStatus(String id, Status status, long records, long processed, long committed,
+                              double recordsPerSecond, Instant submitted, Instant started, Instant finished,
+                              long errorCount, List<String> errors) {
+
+    public enum Status {
+        /** waiting for a free import worker */
+        QUEUED,
+        /** records are ingested chunk by chunk */
+        RUNNING,
+        /** all records committed */
+        COMMITTED,
+        /** chunks without errors committed, the others rejected (commit=chunk) */
+        PARTIALLY_COMMITTED,
+        /** nothing saved due to errors (commit=all) */
+        ROLLED_BACK,
+        /** the job aborted unexpectedly */
+        FAILED
+    }
+}
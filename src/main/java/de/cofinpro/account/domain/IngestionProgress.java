@@ -0,0 +1,30 @@
+package de.cofinpro.account.domain;
+
+import java.util.List;
+
+/**
+ * immutable progress report of the streaming payroll ingestion POST /api/acct/payments/stream - one per chunk of
+ * records and a final one (with chunk null) on the outcome of the whole upload.
+ * @param chunk number of the chunk (starting with 0) or null for the final report
+ * @param records number of records in the chunk - resp. in the whole upload for the final report
+ * @param committed number of records committed (resp. staged) so far
+ * @param status outcome of the chunk or the upload
+ * @param errors validation error messages - empty if none
+ */
+public record IngestionProgress(Long chunk, long records, long committed, Status status, List<String> errors) {
+
+    public enum Status {
+        /** chunk validated and staged, committed with the whole upload (commit=all) */
+        STAGED,
+        /** valid chunk not staged, as an earlier chunk was rejected (commit=all) */
+        VALIDATED,
+        /** chunk (commit=chunk) or whole upload committed */
+        COMMITTED,
+        /** chunk with errors - nothing of it saved */
+        REJECTED,
+        /** upload rolled back - nothing saved (commit=all) */
+        ROLLED_BACK,
+        /** upload committed for all chunks without errors only (commit=chunk) */
+        PARTIALLY_COMMITTED
+    }
+}
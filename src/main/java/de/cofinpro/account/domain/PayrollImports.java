@@ -0,0 +1,216 @@
+package de.cofinpro.account.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.IMPORT_QUEUE_FULL_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.IMPORT_TOO_LARGE_ERRORMSG;
+
+/**
+ * asynchronous payroll import jobs: a submitted upload is processed in the background by the PayrollIngestion
+ * (chunk by chunk, each chunk in its own transaction), so no HTTP connection or transaction stays open for the
+ * whole upload. The jobs run on a bounded pool of account.import.max-concurrent-jobs workers with a queue of
+ * account.import.queue-capacity jobs - so imports can not starve the interactive traffic. If the queue is
+ * saturated, the submission is rejected with 503.
+ * The submitted records are held in memory until their job finished: a job is limited to account.import.max-records
+ * records (413 above), and all queued and running jobs together to account.import.max-pending-records (503 above).
+ * The status of a job is kept for account.import.retention after it finished.
+ * Metrics: account.import.queue.size, account.import.running and account.import.pending.records (gauges),
+ * account.import.rejected (counter).
+ */
+@Component
+@Slf4j
+public class PayrollImports implements DisposableBean {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final PayrollIngestion payrollIngestion;
+    private final Duration retention;
+    private final int maxRecords;
+    private final long maxPendingRecords;
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public PayrollImports(PayrollIngestion payrollIngestion,
+                          MeterRegistry meterRegistry,
+                          @Value("${account.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                          @Value("${account.import.queue-capacity:16}") int queueCapacity,
+                          @Value("${account.import.retention:1h}") Duration retention,
+                          @Value("${account.import.max-records:100000}") int maxRecords,
+                          @Value("${account.import.max-pending-records:1000000}") long maxPendingRecords) {
+        this.payrollIngestion = payrollIngestion;
+        this.retention = retention;
+        this.maxRecords = maxRecords;
+        this.maxPendingRecords = maxPendingRecords;
+        this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("payroll-import-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = meterRegistry.counter("account.import.rejected");
+        Gauge.builder("account.import.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("account.import.running", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("account.import.pending.records", pendingRecords, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return maximum number of records of one job - the request body is read up to one record more
+     */
+    public int maxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * queue an import job for the records.
+     * @param salaryRecords the uploaded records
+     * @param commitMode    all or nothing vs. per chunk commit
+     * @return the status of the queued job
+     * @throws ResponseStatusException with 413, if there are more than maxRecords records - with 503, if the job
+     *         queue or the pending records budget is saturated
+     */
+    public ImportJobStatus submit(List<SalaryRecord> salaryRecords, PayrollIngestion.CommitMode commitMode) {
+        if (salaryRecords.size() > maxRecords) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    IMPORT_TOO_LARGE_ERRORMSG.formatted(maxRecords));
+        }
+        evictExpired();
+        if (pendingRecords.addAndGet(salaryRecords.size()) > maxPendingRecords) {
+            reject(salaryRecords.size());
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), salaryRecords.size());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, salaryRecords, commitMode));
+        } catch (RejectedExecutionException exception) {
+            jobs.remove(job.id);
+            reject(salaryRecords.size());
+        }
+        return job.status();
+    }
+
+    private void reject(int records) {
+        pendingRecords.addAndGet(-records);
+        rejectedCounter.increment();
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, IMPORT_QUEUE_FULL_ERRORMSG);
+    }
+
+    /**
+     * @return the current status of the job - empty if unknown or expired
+     */
+    public Optional<ImportJobStatus> findStatus(String id) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::status);
+    }
+
+    /**
+     * process the job on the import worker thread - the worker is occupied until the ingestion completes.
+     */
+    private void run(ImportJob job, List<SalaryRecord> salaryRecords, PayrollIngestion.CommitMode commitMode) {
+        job.start();
+        try {
+            IngestionProgress outcome = payrollIngestion.ingest(Flux.fromIterable(salaryRecords), commitMode)
+                    .doOnNext(job::progress)
+                    .blockLast();
+            job.finish(outcome == null ? ImportJobStatus.Status.FAILED : switch (outcome.status()) {
+                case COMMITTED -> ImportJobStatus.Status.COMMITTED;
+                case PARTIALLY_COMMITTED -> ImportJobStatus.Status.PARTIALLY_COMMITTED;
+                case ROLLED_BACK -> ImportJobStatus.Status.ROLLED_BACK;
+                default -> ImportJobStatus.Status.FAILED;
+            });
+        } catch (RuntimeException exception) {
+            log.error("payroll import job {} failed", job.id, exception);
+            job.finish(ImportJobStatus.Status.FAILED);
+        } finally {
+            pendingRecords.addAndGet(-salaryRecords.size());
+        }
+    }
+
+    private void evictExpired() {
+        Instant expiry = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedBefore(expiry));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * mutable state of one job - updated by its worker, read by the status requests.
+     */
+    private static class ImportJob {
+
+        private final String id;
+        private final long records;
+        private final Instant submitted = Instant.now();
+        private final List<String> errors = new ArrayList<>();
+        private ImportJobStatus.Status status = ImportJobStatus.Status.QUEUED;
+        private long processed;
+        private long committed;
+        private long errorCount;
+        private Instant started;
+        private Instant finished;
+
+        ImportJob(String id, long records) {
+            this.id = id;
+            this.records = records;
+        }
+
+        synchronized void start() {
+            status = ImportJobStatus.Status.RUNNING;
+            started = Instant.now();
+        }
+
+        synchronized void progress(IngestionProgress progress) {
+            if (progress.chunk() != null) {
+                processed += progress.records();
+            }
+            committed = progress.committed();
+            errorCount += progress.errors().size();
+            progress.errors().stream().limit(Math.max(0, MAX_REPORTED_ERRORS - errors.size())).forEach(errors::add);
+        }
+
+        synchronized void finish(ImportJobStatus.Status outcome) {
+            status = outcome;
+            finished = Instant.now();
+        }
+
+        synchronized boolean finishedBefore(Instant instant) {
+            return finished != null && finished.isBefore(instant);
+        }
+
+        synchronized ImportJobStatus status() {
+            double seconds = started == null ? 0
+                    : Duration.between(started, finished == null ? Instant.now() : finished).toNanos() / 1e9;
+            return new ImportJobStatus(id, status, records, processed, committed,
+                    seconds > 0 ? processed / seconds : 0, submitted, started, finished, errorCount,
+                    List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryBulkInserter;
+import de.cofinpro.account.persistence.SalaryChangedEvent;
+import de.cofinpro.account.persistence.SalaryReactiveRepository;
+import de.cofinpro.account.persistence.StagedConflict;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.CONCURRENT_CHANGE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.DUPLICATE_RECORDS_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.INGESTION_FAILED_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.NO_SUCH_EMPLOYEE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORDMSG_START;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORD_ALREADY_EXISTS_ERRORMSG;
+import static de.cofinpro.account.domain.IngestionProgress.Status.*;
+import static java.util.function.Predicate.not;
+
+/**
+ * streaming ingestion of very large salary uploads with bounded memory: the records are read from the request body
+ * chunk by chunk (SalaryUploadValidator's chunk size), each chunk is validated and written in its own transaction,
+ * before the next chunk is requested - so at most about two chunks are in flight.
+ * Two commit modes are supported:
+ * <ul>
+ *     <li>ALL - all or nothing: chunks are written to SALARY_STAGING and moved to SALARY in one final transaction,
+ *     if no chunk was rejected and the upload contains no duplicates. Else the staged rows are discarded.</li>
+ *     <li>CHUNK - every valid chunk is committed to SALARY on its own, rejected chunks are skipped.</li>
+ * </ul>
+ * Staged rows, that outlived their upload (e.g. the discard after a cancelled upload failed), are swept every
+ * account.upload.staging.sweep-interval, once they are older than account.upload.staging.max-age.
+ */
+@Component
+@Slf4j
+public class PayrollIngestion implements DisposableBean {
+
+    public enum CommitMode { ALL, CHUNK }
+
+    private final SalaryReactiveRepository salaryRepository;
+    private final SalaryBulkInserter bulkInserter;
+    private final SalaryUploadValidator uploadValidator;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration stagingMaxAge;
+    private final Set<String> activeUploads = ConcurrentHashMap.newKeySet();
+    private final Disposable sweepTask;
+
+    public PayrollIngestion(SalaryReactiveRepository salaryRepository, SalaryBulkInserter bulkInserter,
+                            SalaryUploadValidator uploadValidator, TransactionalOperator transactionalOperator,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${account.upload.staging.max-age:1h}") Duration stagingMaxAge,
+                            @Value("${account.upload.staging.sweep-interval:10m}") Duration sweepInterval) {
+        this.salaryRepository = salaryRepository;
+        this.bulkInserter = bulkInserter;
+        this.uploadValidator = uploadValidator;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.stagingMaxAge = stagingMaxAge;
+        this.sweepTask = Flux.interval(sweepInterval, sweepInterval, Schedulers.boundedElastic())
+                .concatMap(tick -> sweepStaleStaging()
+                        .onErrorResume(error -> {
+                            log.error("sweeping stale staged salaries failed", error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /**
+     * ingest the given records.
+     * @param salaryRecords the request body's flux of records
+     * @param commitMode    all or nothing vs. per chunk commit
+     * @return flux of progress reports - one per chunk and a final one
+     */
+    public Flux<IngestionProgress> ingest(Flux<SalaryRecord> salaryRecords, CommitMode commitMode) {
+        return Flux.defer(() -> {
+            String uploadId = UUID.randomUUID().toString();
+            IngestionState state = new IngestionState();
+            Flux<IngestionProgress> chunkReports = salaryRecords.index()
+                    .buffer(uploadValidator.chunkSize())
+                    .index()
+                    .concatMap(chunk -> ingestChunk(uploadId, chunk.getT1(), chunk.getT2(), commitMode, state), 1);
+            if (commitMode == CommitMode.CHUNK) {
+                return chunkReports.concatWith(Mono.fromSupplier(() -> new IngestionProgress(null, state.records,
+                        state.committed, state.rejected ? PARTIALLY_COMMITTED : COMMITTED, List.of())));
+            }
+            activeUploads.add(uploadId);
+            return chunkReports.concatWith(Mono.defer(() -> commitUpload(uploadId, state)))
+                    .onErrorResume(exception -> {
+                        log.error("ingestion of upload {} failed", uploadId, exception);
+                        return salaryRepository.discardStaged(uploadId)
+                                .thenReturn(new IngestionProgress(null, state.records, 0, ROLLED_BACK,
+                                        List.of(INGESTION_FAILED_ERRORMSG)));
+                    })
+                    .doOnCancel(() -> salaryRepository.discardStaged(uploadId)
+                            .subscribe(null, error -> log.error("discarding staged salaries of cancelled upload {}"
+                                    + " failed - left to the staging sweep", uploadId, error)))
+                    .doFinally(signal -> activeUploads.remove(uploadId));
+        });
+    }
+
+    /**
+     * discard the staged salaries of all uploads, that are not in progress and were staged before the max age.
+     * @return Mono of the number of rows discarded
+     */
+    Mono<Long> sweepStaleStaging() {
+        return salaryRepository.findUploadsStagedBefore(LocalDateTime.now().minus(stagingMaxAge))
+                .filter(not(activeUploads::contains))
+                .concatMap(uploadId -> salaryRepository.discardStaged(uploadId)
+                        .doOnNext(rows -> log.warn("discarded {} stale staged salaries of upload {}", rows,
+                                uploadId)))
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public void destroy() {
+        sweepTask.dispose();
+    }
+
+    private Mono<IngestionProgress> ingestChunk(String uploadId, long chunkNumber,
+                                                List<Tuple2<Long, SalaryRecord>> chunk, CommitMode commitMode,
+                                                IngestionState state) {
+        state.records += chunk.size();
+        return commitMode == CommitMode.ALL ? stageChunk(uploadId, chunkNumber, chunk, state)
+                : commitChunk(chunkNumber, chunk, state);
+    }
+
+    /**
+     * per chunk commit: a chunk of valid format is inserted right away - the database constraints reject unknown
+     * employees, existing and duplicate records. Only a rejected chunk is diagnosed.
+     */
+    private Mono<IngestionProgress> commitChunk(long chunkNumber, List<Tuple2<Long, SalaryRecord>> chunk,
+                                                IngestionState state) {
+        List<SalaryRecord> salaryRecords = chunk.stream().map(Tuple2::getT2).toList();
+        if (salaryRecords.stream().map(uploadValidator::validateFormat).anyMatch(not(String::isEmpty))) {
+            return rejectChunk(chunkNumber, chunk, state);
+        }
+        return bulkInserter.insertAll(salaryRecords.stream().map(Salary::fromSalaryRecord).toList())
+                .as(transactionalOperator::transactional)
+                .map(count -> {
+                    state.committed += count;
+                    publishSalaryChanged(salaryRecords.stream().map(SalaryRecord::employee)
+                            .collect(Collectors.toSet()));
+                    return new IngestionProgress(chunkNumber, chunk.size(), state.committed, COMMITTED, List.of());
+                })
+                .onErrorResume(DataIntegrityViolationException.class,
+                        violation -> rejectChunk(chunkNumber, chunk, state));
+    }
+
+    private Mono<IngestionProgress> rejectChunk(long chunkNumber, List<Tuple2<Long, SalaryRecord>> chunk,
+                                                IngestionState state) {
+        state.rejected = true;
+        return uploadValidator.diagnose(chunk)
+                .map(errors -> new IngestionProgress(chunkNumber, chunk.size(), state.committed, REJECTED, errors));
+    }
+
+    /**
+     * all or nothing: staged rows are not checked by the SALARY constraints, so the chunk is validated against the
+     * database before staging. Duplicates across chunks are detected by the final move into SALARY.
+     */
+    private Mono<IngestionProgress> stageChunk(String uploadId, long chunkNumber,
+                                               List<Tuple2<Long, SalaryRecord>> chunk, IngestionState state) {
+        return uploadValidator.validateChunk(chunk)
+                .collectList()
+                .flatMap(validated -> {
+                    List<String> errors = validated.stream().map(Tuple2::getT2).filter(not(String::isEmpty))
+                            .collect(Collectors.toList());
+                    List<SalaryRecord> salaryRecords = validated.stream().map(Tuple2::getT1).toList();
+                    if (errors.isEmpty() && containsDuplicates(salaryRecords)) {
+                        errors.add(DUPLICATE_RECORDS_ERRORMSG);
+                    }
+                    if (!errors.isEmpty()) {
+                        state.rejected = true;
+                        return Mono.just(new IngestionProgress(chunkNumber, validated.size(), state.committed,
+                                REJECTED, errors));
+                    }
+                    if (state.rejected) {
+                        return Mono.just(new IngestionProgress(chunkNumber, validated.size(), state.committed,
+                                VALIDATED, List.of()));
+                    }
+                    return bulkInserter.stageAll(uploadId, salaryRecords.stream().map(Salary::fromSalaryRecord)
+                                    .toList())
+                            .as(transactionalOperator::transactional)
+                            .map(count -> {
+                                state.committed += count;
+                                salaryRecords.forEach(salaryRecord -> state.employees.add(salaryRecord.employee()));
+                                return new IngestionProgress(chunkNumber, validated.size(), state.committed,
+                                        STAGED, List.of());
+                            });
+                });
+    }
+
+    /**
+     * final step of the all or nothing mode: move the staged salaries to SALARY - or discard them, if any chunk was
+     * rejected or the SALARY constraints reject the move (records duplicated across chunks, or a concurrent change
+     * since the validation). A rejected move is diagnosed on the staged rows, so the errors carry the record index.
+     */
+    private Mono<IngestionProgress> commitUpload(String uploadId, IngestionState state) {
+        if (state.rejected) {
+            return salaryRepository.discardStaged(uploadId)
+                    .thenReturn(new IngestionProgress(null, state.records, 0, ROLLED_BACK, List.of()));
+        }
+        return salaryRepository.commitStaged(uploadId)
+                .as(transactionalOperator::transactional)
+                .map(committed -> {
+                    publishSalaryChanged(state.employees);
+                    return new IngestionProgress(null, state.records, committed, COMMITTED, List.of());
+                })
+                .onErrorResume(DataIntegrityViolationException.class, violation -> salaryRepository
+                        .findStagedConflicts(uploadId)
+                        .map(PayrollIngestion::errorMessage)
+                        .collectList()
+                        .flatMap(errors -> salaryRepository.discardStaged(uploadId)
+                                .thenReturn(new IngestionProgress(null, state.records, 0, ROLLED_BACK,
+                                        errors.isEmpty() ? List.of(CONCURRENT_CHANGE_ERRORMSG) : errors))));
+    }
+
+    /**
+     * the staging order is the record order of the upload: chunks are only staged as long as none was rejected.
+     */
+    private static String errorMessage(StagedConflict conflict) {
+        return RECORDMSG_START.formatted(conflict.recordIndex(), switch (conflict.reason()) {
+            case NO_SUCH_EMPLOYEE -> NO_SUCH_EMPLOYEE_ERRORMSG;
+            case RECORD_EXISTS -> RECORD_ALREADY_EXISTS_ERRORMSG;
+            case DUPLICATE -> DUPLICATE_RECORDS_ERRORMSG;
+        });
+    }
+
+    /**
+     * inform all listeners (e.g. the payslip cache), that salaries of the employees have been committed.
+     */
+    private void publishSalaryChanged(Set<String> employees) {
+        eventPublisher.publishEvent(new SalaryChangedEvent(employees));
+    }
+
+    private static boolean containsDuplicates(List<SalaryRecord> salaryRecords) {
+        Set<String> keys = salaryRecords.stream()
+                .map(salaryRecord -> salaryRecord.employee().toLowerCase(Locale.ROOT) + salaryRecord.period())
+                .collect(Collectors.toSet());
+        return keys.size() < salaryRecords.size();
+    }
+
+    /**
+     * counters of one ingestion - only accessed sequentially by the chunk after chunk processing.
+     */
+    private static class IngestionState {
+        final Set<String> employees = new HashSet<>();
+        long records;
+        long committed;
+        boolean rejected;
+    }
+}
@@ -0,0 +1,69 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.PERIOD_REGEX;
+import static de.cofinpro.account.configuration.AccountConfiguration.WRONG_DATE_ERRORMSG;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+
+/**
+ * service layer handler class for the company-wide payroll report endpoints /api/acct/reports/period/{period},
+ * /api/acct/reports/periods and /api/acct/reports/employees (GET) - one request instead of a payslip query per
+ * employee.
+ */
+@Service
+public class PayrollReportHandler {
+
+    private final PayrollReports payrollReports;
+
+    public PayrollReportHandler(PayrollReports payrollReports) {
+        this.payrollReports = payrollReports;
+    }
+
+    /**
+     * controller handler for GET endpoint /api/acct/reports/period/{period} available to ACCOUNTANT role.
+     * @return ServerResponse Mono with the report (headcount, total, minimum, maximum, average) of the period (mm-yyyy)
+     */
+    public Mono<ServerResponse> getPeriodReport(ServerRequest request) {
+        String period = request.pathVariable("period");
+        if (!period.matches(PERIOD_REGEX)) {
+            return Mono.error(new ServerWebInputException(WRONG_DATE_ERRORMSG));
+        }
+        return ok().body(payrollReports.periodReport(Salary.periodIndex(period)), PeriodReport.class);
+    }
+
+    /**
+     * controller handler for GET endpoint /api/acct/reports/periods available to ACCOUNTANT role.
+     * Optional query parameters from and to (mm-yyyy, inclusive) restrict the periods.
+     * @return ServerResponse Mono with the streamed reports per period
+     */
+    public Mono<ServerResponse> getPeriodReports(ServerRequest request) {
+        PeriodRange range;
+        try {
+            range = PeriodRange.fromQueryParams(request).orElse(PeriodRange.ALL);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        return ok().body(payrollReports.periodReports(range.from(), range.to()), PeriodReport.class);
+    }
+
+    /**
+     * controller handler for GET endpoint /api/acct/reports/employees available to ACCOUNTANT role.
+     * Optional query parameters from and to (mm-yyyy, inclusive) restrict the periods summed up per employee.
+     * @return ServerResponse Mono with the streamed reports per employee
+     */
+    public Mono<ServerResponse> getEmployeeReports(ServerRequest request) {
+        PeriodRange range;
+        try {
+            range = PeriodRange.fromQueryParams(request).orElse(PeriodRange.ALL);
+        } catch (ServerWebInputException exception) {
+            return Mono.error(exception);
+        }
+        return ok().body(payrollReports.employeeReports(range.from(), range.to()), EmployeeReport.class);
+    }
+}
@@ -0,0 +1,95 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * company-wide payroll aggregates for accountants. The aggregation is done by GROUP BY queries in the database -
+ * per period on the (period, salary) index, per employee on the (email, period) index - and the grouped rows are
+ * streamed, so the SALARY rows are never loaded into the application. The totals are summed up as DECIMAL, as a
+ * sum of many BIGINT salaries may exceed the BIGINT range.
+ */
+@Component
+public class PayrollReports {
+
+    private static final String AGGREGATES = """
+            COUNT(*) AS records, SUM(salary) AS total,
+            MIN(salary) AS minimum, MAX(salary) AS maximum""";
+
+    private final DatabaseClient databaseClient;
+
+    public PayrollReports(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * @param period period index
+     * @return Mono of the period's report - with zero headcount, if no salaries are stored for the period
+     */
+    public Mono<PeriodReport> periodReport(int period) {
+        return periodReports(period, period).next()
+                .defaultIfEmpty(PeriodReport.empty(Salary.periodText(period)));
+    }
+
+    /**
+     * @param from first period index (inclusive)
+     * @param to last period index (inclusive)
+     * @return Flux of the reports of all periods in the range with stored salaries, ordered by period
+     */
+    public Flux<PeriodReport> periodReports(int from, int to) {
+        return databaseClient.sql("SELECT period, " + AGGREGATES + """
+                         FROM SALARY WHERE period BETWEEN $1 AND $2
+                        GROUP BY period ORDER BY period""")
+                .bind(0, from).bind(1, to)
+                .map(row -> {
+                    long records = get(row, "records");
+                    BigDecimal total = total(row);
+                    return new PeriodReport(Salary.periodText(row.get("period", Integer.class)), records, total,
+                            get(row, "minimum"), get(row, "maximum"), average(total, records));
+                })
+                .all();
+    }
+
+    /**
+     * @param from first period index (inclusive)
+     * @param to last period index (inclusive)
+     * @return Flux of the reports of all employees with salaries in the range, ordered by email
+     */
+    public Flux<EmployeeReport> employeeReports(int from, int to) {
+        return databaseClient.sql("SELECT email, " + AGGREGATES + """
+                         FROM SALARY WHERE period BETWEEN $1 AND $2
+                        GROUP BY email ORDER BY email""")
+                .bind(0, from).bind(1, to)
+                .map(row -> {
+                    long records = get(row, "records");
+                    BigDecimal total = total(row);
+                    return new EmployeeReport(row.get("email", String.class), records, total,
+                            get(row, "minimum"), get(row, "maximum"), average(total, records));
+                })
+                .all();
+    }
+
+    private static long get(Readable row, String column) {
+        Long value = row.get(column, Long.class);
+        return value == null ? 0 : value;
+    }
+
+    private static BigDecimal total(Readable row) {
+        BigDecimal total = row.get("total", BigDecimal.class);
+        return total == null ? BigDecimal.ZERO : total;
+    }
+
+    /**
+     * the average is within the salary range - so it fits a long.
+     */
+    private static long average(BigDecimal total, long records) {
+        return records == 0 ? 0 : total.divide(BigDecimal.valueOf(records), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,119 @@
+package de.cofinpro.account.domain;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import de.cofinpro.account.persistence.LoginReactiveRepository;
+import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryChangedEvent;
+import de.cofinpro.account.persistence.SalaryReactiveRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+/**
+ * bounded cache of the rendered payslips (SalaryResponse) per employee for GET /api/empl/payment - keyed by the
+ * (lower case) email, holding all of the employee's payslips keyed and ordered by period index. Period ranges are
+ * served as sub map of a cached employee or else by an index range scan on SALARY (email, period), which does not
+ * populate the cache. The cache evicts by size and time-to-live. It is invalidated for the affected employees on
+ * every SalaryChangedEvent (published after a commit) and LoginChangedEvent (e.g. user deletion).
+ * Hit, miss and eviction counts are exposed as "cache.*" actuator metrics (cache=payslips) plus the gauge
+ * account.payslip-cache.hit-ratio.
+ * NOTE: the cached maps are unmodifiable and shared.
+ */
+@Component
+public class PayslipCache {
+
+    private final LoginReactiveRepository userRepository;
+    private final SalaryReactiveRepository salaryRepository;
+    private final AsyncCache<String, NavigableMap<Integer, SalaryResponse>> cache;
+
+    public PayslipCache(LoginReactiveRepository userRepository,
+                        SalaryReactiveRepository salaryRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${account.payslip-cache.max-size:10000}") long maxSize,
+                        @Value("${account.payslip-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.salaryRepository = salaryRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "payslips");
+        Gauge.builder("account.payslip-cache.hit-ratio", cache, c -> c.synchronous().stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * retrieve the employee's payslips - from the cache if present, from the database else. Concurrent misses for
+     * the same employee share one database load. An unknown employee is not cached.
+     * @param email employee's email key (case-insensitive)
+     * @return Mono of the payslips keyed by period index ascending, empty Mono if the employee does not exist
+     */
+    public Mono<NavigableMap<Integer, SalaryResponse>> findPayslips(String email) {
+        return Mono.fromFuture(cache.get(key(email), (key, executor) -> loadFromDatabase(email).toFuture()), true);
+    }
+
+    /**
+     * retrieve the employee's payslips within a period range - from the cached payslips if present, else by a range
+     * query on the database.
+     * @param email employee's email key (case-insensitive)
+     * @param from first period index of the range (inclusive)
+     * @param to last period index of the range (inclusive)
+     * @return Mono of the payslips in the range ordered by period, empty Mono if the employee does not exist
+     */
+    public Mono<List<SalaryResponse>> findPayslips(String email, int from, int to) {
+        CompletableFuture<NavigableMap<Integer, SalaryResponse>> cached = cache.getIfPresent(key(email));
+        if (cached != null) {
+            return Mono.fromFuture(cached, true)
+                    .map(payslips -> List.copyOf(payslips.subMap(from, true, to, true).values()));
+        }
+        return userRepository.findByEmail(email)
+                .flatMap(login -> salaryRepository.findAllByEmployeeAndPeriodBetween(email, from, to)
+                        .map(salary -> SalaryResponse.fromLoginAndSalary(salary, login))
+                        .collectList());
+    }
+
+    @EventListener
+    public void onSalaryChanged(SalaryChangedEvent event) {
+        cache.synchronous().invalidateAll(event.emails().stream().map(PayslipCache::key).toList());
+    }
+
+    @EventListener
+    public void onLoginChanged(LoginChangedEvent event) {
+        cache.synchronous().invalidate(key(event.email()));
+    }
+
+    private Mono<NavigableMap<Integer, SalaryResponse>> loadFromDatabase(String email) {
+        return userRepository.findByEmail(email)
+                .flatMap(login -> salaryRepository.findAllByEmail(email, Sort.by(ASC, "period"))
+                        .collectList()
+                        .map(salaries -> {
+                            NavigableMap<Integer, SalaryResponse> payslips = new TreeMap<>();
+                            for (Salary salary : salaries) {
+                                payslips.put(salary.getPeriod(), SalaryResponse.fromLoginAndSalary(salary, login));
+                            }
+                            return Collections.unmodifiableNavigableMap(payslips);
+                        }));
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,46 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.*;
+
+/**
+ * inclusive range of period indices requested by the query parameters period or from and to (mm-yyyy).
+ */
+record PeriodRange(int from, int to) {
+
+    static final PeriodRange ALL = new PeriodRange(0, Integer.MAX_VALUE);
+
+    /**
+     * @return the period range given by the request parameters period or from and to (each one optional) as
+     *         period indices - empty if none of them is given
+     * @throws ServerWebInputException if a parameter is no mm-yyyy period, period is combined with from or to
+     *         or the range is empty
+     */
+    static Optional<PeriodRange> fromQueryParams(ServerRequest request) {
+        Optional<String> searchPeriod = request.queryParam("period");
+        Optional<String> from = request.queryParam("from");
+        Optional<String> to = request.queryParam("to");
+        if (Stream.of(searchPeriod, from, to).flatMap(Optional::stream)
+                .anyMatch(period -> !period.matches(PERIOD_REGEX))) {
+            throw new ServerWebInputException(WRONG_DATE_ERRORMSG);
+        }
+        if (searchPeriod.isPresent() && (from.isPresent() || to.isPresent())) {
+            throw new ServerWebInputException(PERIOD_WITH_RANGE_ERRORMSG);
+        }
+        if (searchPeriod.isEmpty() && from.isEmpty() && to.isEmpty()) {
+            return Optional.empty();
+        }
+        PeriodRange range = new PeriodRange(searchPeriod.or(() -> from).map(Salary::periodIndex).orElse(ALL.from()),
+                searchPeriod.or(() -> to).map(Salary::periodIndex).orElse(ALL.to()));
+        if (range.from() > range.to()) {
+            throw new ServerWebInputException(INVALID_PERIOD_RANGE_ERRORMSG);
+        }
+        return Optional.of(range);
+    }
+}
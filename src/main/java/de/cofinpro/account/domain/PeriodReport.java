@@ -0,0 +1,15 @@
+package de.cofinpro.account.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * immutable payroll report of one period (mm-yyyy) for the ACCOUNTANT endpoints /api/acct/reports/period/{period}
+ * and /api/acct/reports/periods - amounts in cents, the average rounded to full cents.
+ * The total is a BigDecimal, as it may exceed the long range.
+ */
+public record PeriodReport(String period, long headcount, BigDecimal total, long minimum, long maximum, long average) {
+
+    static PeriodReport empty(String period) {
+        return new PeriodReport(period, 0, BigDecimal.ZERO, 0, 0, 0);
+    }
+}
@@ -8,7 +8,8 @@ import static de.cofinpro.account.configuration.AuthenticationConfiguration.EMAI
 import static de.cofinpro.account.configuration.AccountConfiguration.PERIOD_REGEX;
 
 /**
- * immutable record received via http POST and PUT containing a salary record for an employee and month = period
+ * immutable record received via http POST and PUT (and returned by GET /api/acct/payments) containing a salary record
+ * for an employee and month = period
  */
 public record SalaryRecord(
         @NotNull @Pattern(regexp = EMAIL_REGEX, message = "Not a valid corporate Email") String employee,
@@ -5,6 +5,7 @@ import de.cofinpro.account.persistence.Salary;
 
 import java.time.Month;
 import java.time.format.TextStyle;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -12,6 +13,10 @@ import java.util.Locale;
  */
 public record SalaryResponse(String name, String lastname, String period, String salary) {
 
+    private static final String[] MONTH_NAMES = Arrays.stream(Month.values())
+            .map(month -> month.getDisplayName(TextStyle.FULL, Locale.US))
+            .toArray(String[]::new);
+
     /**
      * create the response from the 2 query result entities Login and Salary
      * @param salary entity
@@ -22,15 +27,22 @@ public record SalaryResponse(String name, String lastname, String period, String
                 monthFirst(salary.getPeriod()), getSalaryText(salary.getMonthlySalary()));
     }
 
-    private static String getSalaryText(long salary) {
-        return "%d dollar(s) %02d cent(s)".formatted(salary / 100, salary % 100);
+    /**
+     * render the salary in cents as "%d dollar(s) %02d cent(s)" - by one string concatenation without the Formatter
+     * machinery (negative salaries can not be stored via the API and are left to String.format).
+     */
+    static String getSalaryText(long salary) {
+        if (salary < 0) {
+            return "%d dollar(s) %02d cent(s)".formatted(salary / 100, salary % 100);
+        }
+        long cents = salary % 100;
+        return salary / 100 + (cents < 10 ? " dollar(s) 0" : " dollar(s) ") + cents + " cent(s)";
     }
 
     /**
-     * translate the database record to textual representation (e.g. 2021-05 -> May-2021)
+     * translate the database month index to textual representation (e.g. 2021 * 12 + 5 -> May-2021)
      */
-    private static String monthFirst(String period) {
-       return Month.of(Integer.parseInt(period.substring(5))).getDisplayName(TextStyle.FULL, Locale.US) +
-                "-" + period.substring(0, 4);
+    static String monthFirst(int period) {
+        return MONTH_NAMES[(period - 1) % 12] + "-" + (period - 1) / 12;
     }
-}
\ No newline at end of file
+}
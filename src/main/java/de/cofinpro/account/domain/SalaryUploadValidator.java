@@ -0,0 +1,187 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryBatchRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.CONCURRENT_CHANGE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.DUPLICATE_RECORDS_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.NO_SUCH_EMPLOYEE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORDMSG_START;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORD_ALREADY_EXISTS_ERRORMSG;
+import static java.util.function.Predicate.not;
+
+/**
+ * hibernate and database validation of uploaded SalaryRecords (all users exist for the records given, no entry in
+ * database for a given record). Uploads are inserted right after the format validation - the foreign key to LOGIN
+ * and the unique index on SALARY (email, period) reject unknown employees and existing or duplicate records, so
+ * the happy path needs no reads. Only if the insert fails, the records are diagnosed against the database to report
+ * the offending record indexes.
+ * The database validation runs in chunks of account.upload.validation-chunk-size: per chunk one IN query looks up
+ * the registered employees and one the already existing (employee, period) salaries. Chunks are validated one
+ * after another.
+ */
+@Component
+public class SalaryUploadValidator {
+
+    private final SalaryBatchRepository salaryRepository;
+    private final Validator validator;
+    private final int chunkSize;
+
+    /**
+     * the repository is qualified, as the SalaryBatchRepository fragment implementation is a bean of its own.
+     */
+    public SalaryUploadValidator(@Qualifier("salaryReactiveRepository") SalaryBatchRepository salaryRepository,
+                                 Validator validator,
+                                 @Value("${account.upload.validation-chunk-size:1000}") int chunkSize) {
+        this.salaryRepository = salaryRepository;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * diagnose, why index enriched records are rejected (format errors or a failed insert) - the error messages carry
+     * the array index of the record. Duplicates within the records are reported only, if there are no other errors -
+     * every occurrence of an (employee, period) after the first one.
+     * @param indexedRecords tuples of the record's index in the upload and the record
+     * @return Mono of the error messages in record order - never empty
+     */
+    public Mono<List<String>> diagnose(List<Tuple2<Long, SalaryRecord>> indexedRecords) {
+        return Flux.fromIterable(indexedRecords)
+                .buffer(chunkSize)
+                .concatMap(this::validateChunk)
+                .map(Tuple2::getT2)
+                .filter(not(String::isEmpty))
+                .collectList()
+                .map(errors -> {
+                    if (!errors.isEmpty()) {
+                        return errors;
+                    }
+                    List<String> duplicates = duplicateErrors(indexedRecords);
+                    return duplicates.isEmpty() ? List.of(CONCURRENT_CHANGE_ERRORMSG) : duplicates;
+                });
+    }
+
+    /**
+     * hibernate validate a received SalaryRecord by use of a Spring autowired Validator
+     * @param salaryRecord to validate
+     * @return empty String if validation passes - all errors joined with "&&" else...
+     */
+    public String validateFormat(SalaryRecord salaryRecord) {
+        Errors errors = new BeanPropertyBindingResult(salaryRecord, SalaryRecord.class.getName());
+        validator.validate(salaryRecord, errors);
+        return errors.hasErrors()
+                ? errors.getAllErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage)
+                    .collect(Collectors.joining(" && "))
+                : "";
+    }
+
+    /**
+     * number of records validated with one pair of lookup queries.
+     */
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * validate one chunk of index enriched records.
+     * @param chunk tuples of the record's index in the upload and the record
+     * @return flux of tuples of record and error string in the order of the chunk
+     */
+    Flux<Tuple2<SalaryRecord, String>> validateChunk(List<Tuple2<Long, SalaryRecord>> chunk) {
+        List<String> formatErrors = chunk.stream().map(tuple -> validateFormat(tuple.getT2())).toList();
+        // only records of valid format are validated against the database
+        List<SalaryRecord> wellFormed = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (formatErrors.get(i).isEmpty()) {
+                wellFormed.add(chunk.get(i).getT2());
+            }
+        }
+        Set<String> employees = wellFormed.stream().map(SalaryRecord::employee).map(SalaryUploadValidator::normalized)
+                .collect(Collectors.toSet());
+        return salaryRepository.findRegisteredEmployees(employees)
+                .map(SalaryUploadValidator::normalized)
+                .collect(Collectors.toSet())
+                .flatMap(registered -> salaryRepository.findAllByEmployeeAndPeriodIn(
+                                salaryKeys(wellFormed, registered))
+                        .map(salary -> key(salary.getEmail(), salary.getPeriod()))
+                        .collect(Collectors.toSet())
+                        .map(existing -> errorMessages(chunk, formatErrors, registered, existing)))
+                .flatMapIterable(errorMessages -> errorMessages);
+    }
+
+    /**
+     * distinct salaries with email and period set as lookup keys of the well-formed records of registered employees.
+     */
+    private static List<Salary> salaryKeys(List<SalaryRecord> wellFormed, Set<String> registered) {
+        Map<String, Salary> salaryKeys = new LinkedHashMap<>();
+        wellFormed.stream()
+                .filter(salaryRecord -> registered.contains(normalized(salaryRecord.employee())))
+                .map(Salary::fromSalaryRecord)
+                .forEach(salary -> salaryKeys.putIfAbsent(key(salary.getEmail(), salary.getPeriod()), salary));
+        return List.copyOf(salaryKeys.values());
+    }
+
+    private static List<Tuple2<SalaryRecord, String>> errorMessages(List<Tuple2<Long, SalaryRecord>> chunk,
+                                                                    List<String> formatErrors,
+                                                                    Set<String> registered, Set<String> existing) {
+        List<Tuple2<SalaryRecord, String>> errorMessages = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            long recordId = chunk.get(i).getT1();
+            SalaryRecord salaryRecord = chunk.get(i).getT2();
+            String errorMessage;
+            if (!formatErrors.get(i).isEmpty()) {
+                errorMessage = RECORDMSG_START.formatted(recordId, formatErrors.get(i));
+            } else if (!registered.contains(normalized(salaryRecord.employee()))) {
+                errorMessage = RECORDMSG_START.formatted(recordId, NO_SUCH_EMPLOYEE_ERRORMSG);
+            } else if (existing.contains(key(salaryRecord.employee(), Salary.periodIndex(salaryRecord.period())))) {
+                errorMessage = RECORDMSG_START.formatted(recordId, RECORD_ALREADY_EXISTS_ERRORMSG);
+            } else {
+                errorMessage = "";
+            }
+            errorMessages.add(Tuples.of(salaryRecord, errorMessage));
+        }
+        return errorMessages;
+    }
+
+    /**
+     * error messages for the repeated (employee, period) keys - the unique index is case-insensitive on the employee.
+     */
+    private static List<String> duplicateErrors(List<Tuple2<Long, SalaryRecord>> indexedRecords) {
+        Set<String> keys = new HashSet<>();
+        return indexedRecords.stream()
+                .filter(tuple -> !keys.add(key(tuple.getT2().employee(), Salary.periodIndex(tuple.getT2().period()))))
+                .map(tuple -> RECORDMSG_START.formatted(tuple.getT1(), DUPLICATE_RECORDS_ERRORMSG))
+                .toList();
+    }
+
+    /**
+     * employee emails are case-insensitive in the database.
+     */
+    private static String normalized(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String email, int period) {
+        return normalized(email) + " " + period;
+    }
+}
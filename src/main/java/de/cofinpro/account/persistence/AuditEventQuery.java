@@ -0,0 +1,14 @@
+package de.cofinpro.account.persistence;
+
+import java.time.LocalDate;
+
+/**
+ * keyset page request with optional filters on the AUDIT table - null filter values are not applied.
+ * @param afterId cursor: only events with a greater id are returned (0 for the first page)
+ * @param limit   maximum number of events returned
+ * @param from    first date of the range (inclusive)
+ * @param to      last date of the range (inclusive)
+ */
+public record AuditEventQuery(long afterId, int limit, String action, String subject, String path,
+                              LocalDate from, LocalDate to) {
+}
@@ -0,0 +1,9 @@
+package de.cofinpro.account.persistence;
+
+/**
+ * immutable application event, that is published whenever a user's LOGIN or LOGIN_ROLES rows are changed (role
+ * toggle, lock, unlock, deletion, password change). Listeners use it to invalidate anything derived from the user.
+ * @param email the affected user's email key
+ */
+public record LoginChangedEvent(String email) {
+}
@@ -1,30 +1,47 @@
 package de.cofinpro.account.persistence;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.data.repository.reactive.ReactiveSortingRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
 /**
- * Reactive Crud-Repository for the Login entities.
+ * Reactive Crud-Repository for the Login entities - with the LoginWithRolesRepository fragment to load Logins
+ * together with their roles.
  */
 @Repository
 public interface LoginReactiveRepository extends ReactiveSortingRepository<Login, Long>,
-        ReactiveCrudRepository<Login, Long> {
+        ReactiveCrudRepository<Login, Long>, LoginWithRolesRepository {
 
     Mono<Login> findByEmail(String email);
 
     Mono<Void> deleteByEmail(String email);
 
     /**
-     * lock or unlock a user n the system and reset the failed logins to 0.
+     * lock or unlock a user n the system and reset the failed logins to 0 - in one update statement.
      * @param email         user's email as key
      * @param lockRequested true means lock the user, false unlock
-     * @return the save result
+     * @return number of rows updated
      */
-    default Mono<Login> toggleLock(String email, boolean lockRequested) {
-        return findByEmail(email)
-                .map(login -> login.setAccountLocked(lockRequested).setFailedLogins(0))
-                .flatMap(this::save);
-    }
+    @Modifying
+    @Query("UPDATE LOGIN SET ACCOUNT_LOCKED = $2, FAILED_LOGINS = 0 WHERE EMAIL = $1")
+    Mono<Integer> toggleLock(String email, boolean lockRequested);
+
+    /**
+     * set the persisted failed logins of a user (used by the coalesced flush of the in-memory counters).
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE LOGIN SET FAILED_LOGINS = $2 WHERE EMAIL = $1 AND NOT ACCOUNT_LOCKED")
+    Mono<Integer> updateFailedLogins(String email, int failedLogins);
+
+    /**
+     * reset the persisted failed logins of a user - a no-op write, if there are none.
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE LOGIN SET FAILED_LOGINS = 0 WHERE EMAIL = $1 AND FAILED_LOGINS > 0")
+    Mono<Integer> resetFailedLogins(String email);
 }
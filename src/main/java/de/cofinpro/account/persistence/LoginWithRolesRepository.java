@@ -0,0 +1,22 @@
+package de.cofinpro.account.persistence;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * custom repository fragment of the LoginReactiveRepository, that loads Login entities together with their roles
+ * in one database round trip (instead of one query to LOGIN and one to LOGIN_ROLES per user).
+ */
+public interface LoginWithRolesRepository {
+
+    /**
+     * @param email user's email key
+     * @return Mono of the Login with roles set, empty Mono if the user does not exist
+     */
+    Mono<Login> findWithRolesByEmail(String email);
+
+    /**
+     * @return all Logins with their roles set ascending by id
+     */
+    Flux<Login> findAllWithRoles();
+}
@@ -0,0 +1,67 @@
+package de.cofinpro.account.persistence;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DatabaseClient based implementation of the LoginWithRolesRepository fragment: LOGIN is left joined with
+ * LOGIN_ROLES and the roles of a user are aggregated into one comma separated column (in the order they were
+ * granted), which is split again by a hand-written row mapper.
+ */
+public class LoginWithRolesRepositoryImpl implements LoginWithRolesRepository {
+
+    private static final String SELECT_WITH_ROLES = """
+            SELECT l.id, l.name, l.lastname, l.email, l.password, l.account_locked, l.failed_logins,
+                   LISTAGG(r.user_role, ',') WITHIN GROUP (ORDER BY r.id) AS roles
+            FROM LOGIN l LEFT JOIN LOGIN_ROLES r ON r.email = l.email
+            """;
+    private static final String GROUP_BY_LOGIN = """
+            GROUP BY l.id, l.name, l.lastname, l.email, l.password, l.account_locked, l.failed_logins
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public LoginWithRolesRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Login> findWithRolesByEmail(String email) {
+        return databaseClient.sql(SELECT_WITH_ROLES + "WHERE l.email = $1\n" + GROUP_BY_LOGIN)
+                .bind(0, email)
+                .map(LoginWithRolesRepositoryImpl::toLogin)
+                .one();
+    }
+
+    @Override
+    public Flux<Login> findAllWithRoles() {
+        return databaseClient.sql(SELECT_WITH_ROLES + GROUP_BY_LOGIN + "ORDER BY l.id")
+                .map(LoginWithRolesRepositoryImpl::toLogin)
+                .all();
+    }
+
+    private static Login toLogin(Readable row) {
+        Number failedLogins = row.get("failed_logins", Number.class);
+        return Login.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .lastname(row.get("lastname", String.class))
+                .email(row.get("email", String.class))
+                .password(row.get("password", String.class))
+                .accountLocked(Boolean.TRUE.equals(row.get("account_locked", Boolean.class)))
+                .failedLogins(failedLogins == null ? 0 : failedLogins.intValue())
+                .roles(toRoles(row.get("roles", String.class)))
+                .build();
+    }
+
+    private static List<String> toRoles(String aggregatedRoles) {
+        return aggregatedRoles == null || aggregatedRoles.isEmpty() ? new ArrayList<>()
+                : new ArrayList<>(Arrays.asList(aggregatedRoles.split(",")));
+    }
+}
@@ -26,17 +26,32 @@ public class Salary {
     @Id
     private long id;
     private String email;
-    private String period;
+    // month index year * 12 + month - compact, ordered and range-searchable in the (email, period) index
+    private int period;
     @Column("salary")
     private long monthlySalary;
+    // incremented with every update - for optimistic concurrency via If-Match
+    private long version;
 
     public static Salary fromSalaryRecord(SalaryRecord salaryRecord) {
         return Salary.builder().email(salaryRecord.employee()).monthlySalary(salaryRecord.salary())
-                .period(yearFirst(salaryRecord.period())).build();
+                .period(periodIndex(salaryRecord.period())).build();
     }
 
-    public static String yearFirst(String period) {
-        return period.substring(3) + "-" + period.substring(0,2);
+    /**
+     * translate the textual period into the database month index (e.g. 05-2021 -> 2021 * 12 + 5)
+     */
+    public static int periodIndex(String monthFirstPeriod) {
+        return Integer.parseInt(monthFirstPeriod.substring(3)) * 12
+                + Integer.parseInt(monthFirstPeriod.substring(0, 2));
+    }
+
+    /**
+     * translate the database month index back into the textual period (e.g. 2021 * 12 + 5 -> 05-2021)
+     */
+    public static String periodText(int periodIndex) {
+        int month = (periodIndex - 1) % 12 + 1;
+        return (month < 10 ? "0" : "") + month + "-" + (periodIndex - 1) / 12;
     }
 
     public static Salary empty() {
@@ -0,0 +1,67 @@
+package de.cofinpro.account.persistence;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * custom repository fragment of the SalaryReactiveRepository with set-based lookups for the validation of salary
+ * uploads - one query per chunk of records instead of one per record - and the SALARY_STAGING operations of the
+ * all-or-nothing streaming ingestion (salaries are staged by the SalaryBulkInserter).
+ */
+public interface SalaryBatchRepository {
+
+    /**
+     * @param emails employee emails to look up
+     * @return the given emails, that belong to a registered user (in the spelling of the LOGIN table)
+     */
+    Flux<String> findRegisteredEmployees(Collection<String> emails);
+
+    /**
+     * @param salaries salaries with email and period index set as keys to look up
+     * @return the persisted salaries among the given email and period combinations
+     */
+    Flux<Salary> findAllByEmployeeAndPeriodIn(Collection<Salary> salaries);
+
+    /**
+     * update the salary of an employee and period in one conditional statement and increment its version.
+     * @param expectedVersion the version the salary must have to be updated - or null for an unconditional update
+     * @return Mono of the new version - empty, if no salary matched
+     */
+    Mono<Long> updateSalary(String email, int period, long salary, Long expectedVersion);
+
+    /**
+     * update the salaries of many employee and period combinations with one batched statement (bindings added per
+     * salary) and increment their versions.
+     * @param salaries salaries with email, period index and new salary set
+     * @return flux of the number of rows updated per salary in the order given - 0 if there is no such salary
+     */
+    Flux<Long> updateAll(List<Salary> salaries);
+
+    /**
+     * move all staged salaries of the upload into SALARY (in staging order) - to be called in a transaction.
+     * @return number of salaries committed
+     */
+    Mono<Long> commitStaged(String uploadId);
+
+    /**
+     * diagnose, why the staged salaries of the upload can not be committed.
+     * @return flux of the conflicting staged salaries in staging order - one per salary, the first reason wins
+     */
+    Flux<StagedConflict> findStagedConflicts(String uploadId);
+
+    /**
+     * @param stagedBefore staging time limit (exclusive)
+     * @return the distinct ids of the uploads with salaries staged before the limit
+     */
+    Flux<String> findUploadsStagedBefore(LocalDateTime stagedBefore);
+
+    /**
+     * delete all staged salaries of the upload.
+     * @return number of rows deleted
+     */
+    Mono<Long> discardStaged(String uploadId);
+}
@@ -0,0 +1,139 @@
+package de.cofinpro.account.persistence;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DatabaseClient based implementation of the SalaryBatchRepository fragment: the collections are expanded into
+ * one IN list of bind markers - the (email, period) keys as row values. Staged salaries are kept per upload id in
+ * SALARY_STAGING and moved to SALARY by one INSERT ... SELECT - a rejected move is diagnosed by window functions
+ * over the staged rows. Updates select the new version from the FINAL TABLE of the UPDATE - in the same round trip.
+ * Bulk updates are one R2DBC statement with a binding set per salary, executed on the (transaction bound) connection
+ * of the DatabaseClient.
+ */
+public class SalaryBatchRepositoryImpl implements SalaryBatchRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public SalaryBatchRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<String> findRegisteredEmployees(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT email FROM LOGIN WHERE email IN (:emails)")
+                .bind("emails", emails)
+                .map(row -> row.get("email", String.class))
+                .all();
+    }
+
+    @Override
+    public Flux<Salary> findAllByEmployeeAndPeriodIn(Collection<Salary> salaries) {
+        if (salaries.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT id, email, period, salary FROM SALARY WHERE (email, period) IN (:keys)")
+                .bind("keys", salaries.stream().map(salary -> new Object[] { salary.getEmail(), salary.getPeriod() })
+                        .toList())
+                .map(row -> Salary.builder()
+                        .id(row.get("id", Long.class))
+                        .email(row.get("email", String.class))
+                        .period(row.get("period", Integer.class))
+                        .monthlySalary(row.get("salary", Long.class))
+                        .build())
+                .all();
+    }
+
+    @Override
+    public Mono<Long> updateSalary(String email, int period, long salary, Long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec update = databaseClient.sql("""
+                        SELECT version FROM FINAL TABLE (UPDATE SALARY SET salary = $3, version = version + 1
+                        WHERE email = $1 AND period = $2""" + (expectedVersion == null ? ")" : " AND version = $4)"))
+                .bind(0, email).bind(1, period).bind(2, salary);
+        if (expectedVersion != null) {
+            update = update.bind(3, expectedVersion);
+        }
+        return update.map(row -> row.get("version", Long.class)).one();
+    }
+
+    @Override
+    public Flux<Long> updateAll(List<Salary> salaries) {
+        if (salaries.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            Statement update = connection.createStatement(
+                    "UPDATE SALARY SET salary = $1, version = version + 1 WHERE email = $2 AND period = $3");
+            for (int i = 0; i < salaries.size(); i++) {
+                if (i > 0) {
+                    update.add();
+                }
+                update.bind(0, salaries.get(i).getMonthlySalary())
+                        .bind(1, salaries.get(i).getEmail())
+                        .bind(2, salaries.get(i).getPeriod());
+            }
+            return Flux.from(update.execute()).concatMap(Result::getRowsUpdated);
+        });
+    }
+
+    @Override
+    public Mono<Long> commitStaged(String uploadId) {
+        return databaseClient.sql("""
+                        INSERT INTO SALARY (email, period, salary)
+                        SELECT email, period, salary FROM SALARY_STAGING WHERE upload_id = $1 ORDER BY id""")
+                .bind(0, uploadId)
+                .fetch().rowsUpdated()
+                .flatMap(committed -> discardStaged(uploadId).thenReturn(committed));
+    }
+
+    @Override
+    public Flux<StagedConflict> findStagedConflicts(String uploadId) {
+        return databaseClient.sql("""
+                        SELECT record_index, registered, existing, occurrence FROM (
+                            SELECT ROW_NUMBER() OVER (ORDER BY s.id) - 1 AS record_index,
+                                ROW_NUMBER() OVER (PARTITION BY s.email, s.period ORDER BY s.id) AS occurrence,
+                                EXISTS (SELECT 1 FROM LOGIN l WHERE l.email = s.email) AS registered,
+                                EXISTS (SELECT 1 FROM SALARY t WHERE t.email = s.email AND t.period = s.period)
+                                    AS existing
+                            FROM SALARY_STAGING s WHERE s.upload_id = $1)
+                        WHERE NOT registered OR existing OR occurrence > 1 ORDER BY record_index""")
+                .bind(0, uploadId)
+                .map(row -> {
+                    StagedConflict.Reason reason;
+                    if (!Boolean.TRUE.equals(row.get("registered", Boolean.class))) {
+                        reason = StagedConflict.Reason.NO_SUCH_EMPLOYEE;
+                    } else if (Boolean.TRUE.equals(row.get("existing", Boolean.class))) {
+                        reason = StagedConflict.Reason.RECORD_EXISTS;
+                    } else {
+                        reason = StagedConflict.Reason.DUPLICATE;
+                    }
+                    return new StagedConflict(row.get("record_index", Long.class), reason);
+                })
+                .all();
+    }
+
+    @Override
+    public Flux<String> findUploadsStagedBefore(LocalDateTime stagedBefore) {
+        return databaseClient.sql("SELECT DISTINCT upload_id FROM SALARY_STAGING WHERE staged_at < $1")
+                .bind(0, stagedBefore)
+                .map(row -> row.get("upload_id", String.class))
+                .all();
+    }
+
+    @Override
+    public Mono<Long> discardStaged(String uploadId) {
+        return databaseClient.sql("DELETE FROM SALARY_STAGING WHERE upload_id = $1")
+                .bind(0, uploadId)
+                .fetch().rowsUpdated();
+    }
+}
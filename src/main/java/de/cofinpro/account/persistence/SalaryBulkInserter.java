@@ -0,0 +1,97 @@
+package de.cofinpro.account.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * bulk insert of salaries: instead of one INSERT statement per entity with its own generated key retrieval (as
+ * SalaryReactiveRepository.saveAll does), the salaries are written with one multi-row INSERT per batch of
+ * account.salary.insert.batch-size rows. Batches are executed one after another - so all of them run in the
+ * transaction of the caller, if any.
+ * Throughput is measured by the counters account.salary.insert.rows and account.salary.insert.batches (their rates
+ * give rows/s and batches/s) and the timer account.salary.insert.batch.
+ */
+@Component
+public class SalaryBulkInserter {
+
+    private final DatabaseClient databaseClient;
+    private final int batchSize;
+    private final Counter rows;
+    private final Counter batches;
+    private final Timer batchTimer;
+
+    public SalaryBulkInserter(DatabaseClient databaseClient, MeterRegistry meterRegistry,
+                              @Value("${account.salary.insert.batch-size:500}") int batchSize) {
+        this.databaseClient = databaseClient;
+        this.batchSize = batchSize;
+        this.rows = Counter.builder("account.salary.insert.rows").baseUnit("rows").register(meterRegistry);
+        this.batches = Counter.builder("account.salary.insert.batches").baseUnit("batches").register(meterRegistry);
+        this.batchTimer = meterRegistry.timer("account.salary.insert.batch");
+    }
+
+    /**
+     * insert the salaries into SALARY.
+     * @return number of rows inserted
+     */
+    public Mono<Long> insertAll(List<Salary> salaries) {
+        return insertBatches("SALARY", null, salaries);
+    }
+
+    /**
+     * stage salaries of an upload in SALARY_STAGING - they are moved to SALARY by
+     * SalaryBatchRepository.commitStaged.
+     * @param uploadId key of the upload
+     * @return number of rows staged
+     */
+    public Mono<Long> stageAll(String uploadId, List<Salary> salaries) {
+        return insertBatches("SALARY_STAGING", uploadId, salaries);
+    }
+
+    private Mono<Long> insertBatches(String table, String uploadId, List<Salary> salaries) {
+        return Flux.range(0, (salaries.size() + batchSize - 1) / batchSize)
+                .concatMap(batch -> insertBatch(table, uploadId, salaries.subList(batch * batchSize,
+                        Math.min(salaries.size(), (batch + 1) * batchSize))))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertBatch(String table, String uploadId, List<Salary> batch) {
+        int columns = uploadId == null ? 3 : 4;
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(uploadId == null
+                ? " (email, period, salary) VALUES " : " (email, period, salary, upload_id) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            int offset = i * columns;
+            sql.append(i == 0 ? "" : ", ").append(uploadId == null
+                    ? "($%d, $%d, $%d)".formatted(offset + 1, offset + 2, offset + 3)
+                    : "($%d, $%d, $%d, $%d)".formatted(offset + 1, offset + 2, offset + 3, offset + 4));
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(sql.toString());
+            for (int i = 0; i < batch.size(); i++) {
+                Salary salary = batch.get(i);
+                int offset = i * columns;
+                insert = insert.bind(offset, salary.getEmail())
+                        .bind(offset + 1, salary.getPeriod())
+                        .bind(offset + 2, salary.getMonthlySalary());
+                if (uploadId != null) {
+                    insert = insert.bind(offset + 3, uploadId);
+                }
+            }
+            return insert.fetch().rowsUpdated()
+                    .doOnNext(inserted -> {
+                        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                        rows.increment(inserted);
+                        batches.increment();
+                    });
+        });
+    }
+}
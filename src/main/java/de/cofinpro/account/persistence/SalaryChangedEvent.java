@@ -0,0 +1,12 @@
+package de.cofinpro.account.persistence;
+
+import java.util.Set;
+
+/**
+ * immutable application event, that is published after salaries of employees have been added or changed in SALARY
+ * (upload, update, bulk update, streaming ingestion) and committed. Listeners use it to invalidate anything derived
+ * from the employees' salaries.
+ * @param emails the affected employees' email keys
+ */
+public record SalaryChangedEvent(Set<String> emails) {
+}
@@ -9,14 +9,18 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
- * Reactive Sorting-Repository for the Salary entities.
+ * Reactive Sorting-Repository for the Salary entities - with the SalaryBatchRepository fragment for set-based
+ * lookups during uploads.
  */
 @Repository
 public interface SalaryReactiveRepository extends ReactiveSortingRepository<Salary, Long>,
-        ReactiveCrudRepository<Salary, Long> {
+        ReactiveCrudRepository<Salary, Long>, SalaryBatchRepository {
 
     @Query("SELECT * FROM SALARY WHERE EMAIL = $1 AND PERIOD = $2")
-    Mono<Salary> findByEmployeeAndPeriod(String email, String period);
+    Mono<Salary> findByEmployeeAndPeriod(String email, int period);
+
+    @Query("SELECT * FROM SALARY WHERE EMAIL = $1 AND PERIOD BETWEEN $2 AND $3 ORDER BY PERIOD")
+    Flux<Salary> findAllByEmployeeAndPeriodBetween(String email, int from, int to);
 
     Flux<Salary> findAllByEmail(String email, Sort sort);
 
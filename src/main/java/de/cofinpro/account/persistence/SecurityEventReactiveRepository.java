@@ -5,9 +5,10 @@ import org.springframework.data.repository.reactive.ReactiveSortingRepository;
 import org.springframework.stereotype.Repository;
 
 /**
- * Reactive Sorting-Repository for the SecurityEvent entities, i.e. the auditing logging.
+ * Reactive Sorting-Repository for the SecurityEvent entities, i.e. the auditing logging - with the
+ * SecurityEventSearchRepository fragment for the paginated query.
  */
 @Repository
 public interface SecurityEventReactiveRepository  extends ReactiveSortingRepository<SecurityEvent, Long>,
-        ReactiveCrudRepository<SecurityEvent, Long> {
+        ReactiveCrudRepository<SecurityEvent, Long>, SecurityEventSearchRepository {
 }
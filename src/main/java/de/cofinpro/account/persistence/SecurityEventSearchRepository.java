@@ -0,0 +1,16 @@
+package de.cofinpro.account.persistence;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * custom repository fragment of the SecurityEventReactiveRepository for the filtered and keyset paginated
+ * audit event query.
+ */
+public interface SecurityEventSearchRepository {
+
+    /**
+     * @param query cursor, limit and filters
+     * @return at most query.limit() events matching all filters with id greater than query.afterId() ascending by id
+     */
+    Flux<SecurityEvent> findPage(AuditEventQuery query);
+}
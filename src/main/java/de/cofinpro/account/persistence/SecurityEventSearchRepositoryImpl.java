@@ -0,0 +1,46 @@
+package de.cofinpro.account.persistence;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * R2dbcEntityTemplate based implementation of the SecurityEventSearchRepository fragment. The page is selected by
+ * "id > afterId ORDER BY id LIMIT n" - so every page costs the same, however deep the auditor pages. The filters
+ * are served by the composite (column, id) indexes of the AUDIT table.
+ */
+public class SecurityEventSearchRepositoryImpl implements SecurityEventSearchRepository {
+
+    private final R2dbcEntityTemplate entityTemplate;
+
+    public SecurityEventSearchRepositoryImpl(R2dbcEntityTemplate entityTemplate) {
+        this.entityTemplate = entityTemplate;
+    }
+
+    @Override
+    public Flux<SecurityEvent> findPage(AuditEventQuery query) {
+        Criteria criteria = where("id").greaterThan(query.afterId());
+        if (query.action() != null) {
+            criteria = criteria.and("action").is(query.action());
+        }
+        if (query.subject() != null) {
+            criteria = criteria.and("subject").is(query.subject());
+        }
+        if (query.path() != null) {
+            criteria = criteria.and("path").is(query.path());
+        }
+        if (query.from() != null) {
+            criteria = criteria.and("date").greaterThanOrEquals(query.from());
+        }
+        if (query.to() != null) {
+            criteria = criteria.and("date").lessThanOrEquals(query.to());
+        }
+        return entityTemplate.select(SecurityEvent.class)
+                .matching(Query.query(criteria).sort(Sort.by(Sort.Direction.ASC, "id")).limit(query.limit()))
+                .all();
+    }
+}
@@ -0,0 +1,18 @@
+package de.cofinpro.account.persistence;
+
+/**
+ * a staged salary of an upload, that can not be moved into SALARY.
+ * @param recordIndex index of the record among the staged records of the upload (staging order)
+ * @param reason      the violated constraint
+ */
+public record StagedConflict(long recordIndex, Reason reason) {
+
+    public enum Reason {
+        /** the employee is not (any more) registered in LOGIN */
+        NO_SUCH_EMPLOYEE,
+        /** SALARY already holds a record for the employee and period */
+        RECORD_EXISTS,
+        /** an earlier staged record of the upload has the same employee and period */
+        DUPLICATE
+    }
+}
@@ -0,0 +1,138 @@
+package de.cofinpro.account.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.cofinpro.account.ratelimit.RateLimitProperties.Rule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static de.cofinpro.account.configuration.AuthenticationConfiguration.TOO_MANY_REQUESTS_ERRORMSG;
+
+/**
+ * WebFilter ordered before the SecurityWebFilterChain (order -100), that rejects requests exceeding the configured
+ * per path pattern limits with 429 - before any password hashing, database lookup or audit logging happens.
+ * Each request takes a token from the bucket of its remote address and - for Http-Basic requests - from the bucket
+ * of the claimed username (unverified, so an attacker can't spread a password guessing attack over addresses).
+ * The buckets are held in a bounded Caffeine cache, that evicts idle and least recently used clients.
+ */
+@Component
+@Order(RateLimitFilter.ORDER)
+public class RateLimitFilter implements WebFilter {
+
+    static final int ORDER = -200;
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final boolean enabled;
+    private final List<CompiledRule> rules;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = properties.enabled() && !properties.rules().isEmpty();
+        this.rules = properties.rules().stream()
+                .map(rule -> new CompiledRule(PathPatternParser.defaultInstance.parse(rule.pattern()), rule))
+                .toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxClients())
+                .expireAfterAccess(properties.idleTimeout())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit-buckets");
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        Optional<CompiledRule> matchingRule = rules.stream()
+                .filter(rule -> rule.pattern().matches(request.getPath().pathWithinApplication()))
+                .findFirst();
+        if (matchingRule.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        CompiledRule rule = matchingRule.get();
+        long waitNanos = consume(rule, "address", remoteAddress(request));
+        if (waitNanos == 0) {
+            waitNanos = claimedUsername(request).map(user -> consume(rule, "user", user)).orElse(0L);
+        }
+        if (waitNanos > 0) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_ERRORMSG));
+        }
+        return chain.filter(exchange);
+    }
+
+    private long consume(CompiledRule rule, String keyType, String client) {
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.get(keyType + ':' + rule.source().pattern() + ':' + client,
+                key -> new TokenBucket(rule.source().capacity(), rule.source().period().toNanos(), now));
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            meterRegistry.counter("account.rate-limit.rejected", "rule", rule.source().pattern(), "key", keyType)
+                    .increment();
+        }
+        return waitNanos;
+    }
+
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() == null ? remoteAddress.getHostString()
+                : remoteAddress.getAddress().getHostAddress();
+    }
+
+    /**
+     * the username of an Http-Basic Authorization header - not verified here, just decoded.
+     */
+    static Optional<String> claimedUsername(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return Optional.empty();
+        }
+        try {
+            String credentials = new String(Base64.getDecoder().decode(
+                    authorization.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return colon <= 0 ? Optional.empty()
+                    : Optional.of(credentials.substring(0, colon).toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException invalidBase64) {
+            return Optional.empty();
+        }
+    }
+
+    private record CompiledRule(PathPattern pattern, Rule source) {
+    }
+}
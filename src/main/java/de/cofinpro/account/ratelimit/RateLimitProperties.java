@@ -0,0 +1,31 @@
+package de.cofinpro.account.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * configuration of the RateLimitFilter (prefix "account.rate-limit").
+ * @param enabled    switch to turn rate limiting off completely
+ * @param maxClients maximum number of token buckets held - least recently used ones are evicted
+ * @param idleTimeout buckets not used for this time are evicted (an idle bucket would be full again anyway)
+ * @param rules      per path pattern limits - the first matching rule applies, requests matching no rule pass
+ */
+@ConfigurationProperties(prefix = "account.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") long maxClients,
+                                  @DefaultValue("10m") Duration idleTimeout,
+                                  @DefaultValue List<Rule> rules) {
+
+    /**
+     * limit for requests on paths matching the pattern: every client (remote address) and every claimed username
+     * may do capacity requests in a burst, the tokens are refilled continuously with capacity per period.
+     * @param pattern  Spring PathPattern, e.g. "/api/auth/**"
+     * @param capacity bucket size = burst requests allowed
+     * @param period   time to refill an empty bucket completely
+     */
+    public record Rule(String pattern, int capacity, Duration period) {
+    }
+}
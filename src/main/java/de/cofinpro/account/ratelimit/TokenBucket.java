@@ -0,0 +1,40 @@
+package de.cofinpro.account.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * lock-free token bucket. Instead of a token count and a last refill time, the bucket keeps only one value in
+ * an AtomicLong: the (nano) time at which it will be full again (generic cell rate algorithm formulation). Taking a
+ * token adds one emission interval to it - the bucket is empty, when this would exceed the capacity's worth of time.
+ * So refill is continuous and a request costs one compare-and-set, without any scheduled refill task.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong fullAtNanos;
+
+    public TokenBucket(int capacity, long periodNanos, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, periodNanos / capacity);
+        this.capacityNanos = emissionIntervalNanos * capacity;
+        this.fullAtNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * try to take one token.
+     * @param nowNanos current time as of System.nanoTime()
+     * @return 0 if a token was taken, else the nanos to wait until the next token is available.
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long fullAt = fullAtNanos.get();
+            long updated = Math.max(fullAt - nowNanos, 0) + emissionIntervalNanos;
+            if (updated > capacityNanos) {
+                return updated - capacityNanos;
+            }
+            if (fullAtNanos.compareAndSet(fullAt, nowNanos + updated)) {
+                return 0;
+            }
+        }
+    }
+}
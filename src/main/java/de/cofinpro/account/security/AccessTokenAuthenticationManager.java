@@ -0,0 +1,28 @@
+package de.cofinpro.account.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+import static de.cofinpro.account.configuration.AuthenticationConfiguration.INVALID_TOKEN_ERRORMSG;
+
+/**
+ * ReactiveAuthenticationManager for bearer access tokens, that verifies the token by signature, expiry and revocation
+ * epoch only - without any database access or password check.
+ * NOTE: deliberately no bean - it is only wired into the token AuthenticationWebFilter.
+ */
+public class AccessTokenAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final AccessTokenService accessTokenService;
+
+    public AccessTokenAuthenticationManager(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        return Mono.justOrEmpty(accessTokenService.verify((String) authentication.getCredentials()))
+                .switchIfEmpty(Mono.error(() -> new BadCredentialsException(INVALID_TOKEN_ERRORMSG)));
+    }
+}
@@ -0,0 +1,44 @@
+package de.cofinpro.account.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authentication implementation for bearer access tokens - unauthenticated it only carries the raw token, after
+ * successful verification the user's email as principal and the roles from the token as authorities.
+ */
+public class AccessTokenAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final String email;
+    private final String token;
+
+    private AccessTokenAuthenticationToken(String email, String token,
+                                           Collection<? extends GrantedAuthority> authorities, boolean authenticated) {
+        super(authorities);
+        this.email = email;
+        this.token = token;
+        setAuthenticated(authenticated);
+    }
+
+    public static AccessTokenAuthenticationToken unauthenticated(String token) {
+        return new AccessTokenAuthenticationToken(null, token, List.of(), false);
+    }
+
+    public static AccessTokenAuthenticationToken authenticated(String email, String token,
+                                                               Collection<? extends GrantedAuthority> authorities) {
+        return new AccessTokenAuthenticationToken(email, token, authorities, true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return token;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return email;
+    }
+}
@@ -0,0 +1,146 @@
+package de.cofinpro.account.security;
+
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * issues and verifies compact stateless access tokens of the form base64url(payload).base64url(HMAC-SHA256), with
+ * payload "email|roles|epoch|expiry". Verification needs no database access. Each user has a revocation epoch, that
+ * is incremented on every LoginChangedEvent (lock, delete, role toggle, password change) - tokens carrying an older
+ * epoch are rejected. The signing key is random per process, so tokens do not survive an application restart.
+ */
+@Component
+public class AccessTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String FIELD_SEPARATOR = "|";
+    private static final int FIELD_COUNT = 4;
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final SecretKeySpec signingKey;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::createMac);
+    private final Map<String, Long> revocationEpochs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccessTokenService(@Value("${account.token.ttl:15m}") Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    AccessTokenService(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.signingKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    /**
+     * issue a signed token for the authenticated user carrying its roles and the current revocation epoch.
+     * @param authentication a successful (password) authentication
+     * @return the token string
+     */
+    public String issue(Authentication authentication) {
+        String email = authentication.getName();
+        String roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        String payload = String.join(FIELD_SEPARATOR, email, roles, Long.toString(epoch(email)),
+                Long.toString(clock.instant().plus(ttl).getEpochSecond()));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * verify signature, expiry and revocation epoch of the given token.
+     * @return the authenticated AccessTokenAuthenticationToken if the token is valid, empty Optional else.
+     */
+    public Optional<Authentication> verify(String token) {
+        int separator = token == null ? -1 : token.indexOf('.');
+        if (separator < 0) {
+            return Optional.empty();
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException notBase64) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return Optional.empty();
+        }
+        // the payload is signed by us - so the format is known to be correct from here on
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", -1);
+        if (fields.length != FIELD_COUNT
+                || Long.parseLong(fields[3]) < clock.instant().getEpochSecond()
+                || Long.parseLong(fields[2]) != epoch(fields[0])) {
+            return Optional.empty();
+        }
+        List<GrantedAuthority> authorities = fields[1].isEmpty()
+                ? List.of() : AuthorityUtils.commaSeparatedStringToAuthorityList(fields[1]);
+        return Optional.of(AccessTokenAuthenticationToken.authenticated(fields[0], token, authorities));
+    }
+
+    /**
+     * token lifetime in seconds.
+     */
+    public long getTtlSeconds() {
+        return ttl.toSeconds();
+    }
+
+    /**
+     * revokes all tokens issued so far to the user changed by incrementing its revocation epoch.
+     */
+    @EventListener
+    public void onLoginChanged(LoginChangedEvent event) {
+        revocationEpochs.merge(key(event.email()), 1L, Long::sum);
+    }
+
+    private long epoch(String email) {
+        return revocationEpochs.getOrDefault(key(email), 0L);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("HMAC initialization failed", exception);
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,6 +1,8 @@
 package de.cofinpro.account.security;
 
 import de.cofinpro.account.audit.BruteForceProtector;
+import de.cofinpro.account.breach.BreachedPasswordChecker;
+import de.cofinpro.account.persistence.Login;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.core.Authentication;
@@ -9,8 +11,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import static de.cofinpro.account.configuration.AuthenticationConfiguration.PASSWORD_HACKED_ERRORMSG;
-import static de.cofinpro.account.configuration.AuthenticationConfiguration.passwordIsHacked;
+import static java.util.function.Predicate.not;
 
 /**
  * custom ReactiveAuthenticationManager, that makes sure, that no user can login with a password, that
@@ -21,31 +25,59 @@ import static de.cofinpro.account.configuration.AuthenticationConfiguration.pass
 public class AccountReactiveAuthenticationManager extends UserDetailsRepositoryReactiveAuthenticationManager {
 
     private final BruteForceProtector bruteForceProtector;
+    private final VerifiedCredentialCache credentialCache;
+    private final BreachedPasswordChecker breachedPasswordChecker;
 
     @Autowired
     public AccountReactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService,
-                                                PasswordEncoder passwordEncoder, BruteForceProtector bruteForceProtector) {
+                                                PasswordEncoder passwordEncoder, BruteForceProtector bruteForceProtector,
+                                                VerifiedCredentialCache credentialCache,
+                                                PasswordHashingExecutor passwordHashingExecutor,
+                                                BreachedPasswordChecker breachedPasswordChecker) {
         super(userDetailsService);
         setPasswordEncoder(passwordEncoder);
+        setScheduler(passwordHashingExecutor.scheduler());
         this.bruteForceProtector = bruteForceProtector;
+        this.credentialCache = credentialCache;
+        this.breachedPasswordChecker = breachedPasswordChecker;
     }
 
     /**
      * overridden authenticate method, that pre-applies the check if the given password was hacked.
      * Also it maps errors to a custom exception that carries the user for audit logging and on
-     * successful login resets the failedLogin field in the user's Login database record.
+     * successful login resets the failedLogin field in the user's Login database record (if there are failures).
+     * The password check runs on the crypto pool of the PasswordHashingExecutor - a saturated pool results in a 503.
+     * Credentials verified recently are taken from the (opt-in) VerifiedCredentialCache without BCrypt check.
      * @param authentication the {@link Authentication} to test
      * @return error Mono requesting the user to change password if check fails, default return of super.authenticate() else.
      */
     @Override
     public Mono<Authentication> authenticate(Authentication authentication) {
-        if (passwordIsHacked((String) authentication.getCredentials())) {
+        String password = (String) authentication.getCredentials();
+        if (breachedPasswordChecker.isBreached(password)) {
             return Mono.error(new AccountBadCredentialsException(PASSWORD_HACKED_ERRORMSG + " Please change!",
                     authentication.getName()));
         }
-        return super.authenticate(authentication)
-                .doOnSuccess(auth -> bruteForceProtector.resetLoginFailures(auth.getName()))
-                .onErrorMap(exception -> new AccountBadCredentialsException(exception.getMessage(),
-                        authentication.getName()));
+        return credentialCache.get(authentication.getName(), password)
+                .map(Mono::just)
+                .orElseGet(() -> {
+                    long generation = credentialCache.generation();
+                    return super.authenticate(authentication).doOnNext(auth ->
+                            credentialCache.put(authentication.getName(), password, auth, generation));
+                })
+                .flatMap(this::resetLoginFailures)
+                .onErrorMap(not(RejectedExecutionException.class::isInstance),
+                        exception -> new AccountBadCredentialsException(exception.getMessage(), authentication.getName()))
+                .onErrorMap(PasswordHashingExecutor::mapRejection);
+    }
+
+    /**
+     * reset the failed logins with the Login principal loaded during authentication - no further user lookup.
+     */
+    private Mono<Authentication> resetLoginFailures(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof Login login) {
+            return bruteForceProtector.resetLoginFailures(login).thenReturn(authentication);
+        }
+        return Mono.just(authentication);
     }
-}
\ No newline at end of file
+}
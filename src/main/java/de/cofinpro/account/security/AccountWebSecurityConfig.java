@@ -5,14 +5,18 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
 import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
 
 /**
  * Spring WebFlux security configuration, that sets up the Security WebFilterChain with access information to
- * the endpoints, Http-Basic authentication manager and error handling and CSRF disabling.
+ * the endpoints, Http-Basic authentication manager, a stateless bearer access token filter and error handling and
+ * CSRF disabling.
  * Further, beans provide the ReactiveUserDetailsService and a BcryptPasswordEncoder for use in the authentication
  * manager.
  */
@@ -24,8 +28,11 @@ public class AccountWebSecurityConfig {
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
                                                             ReactiveAuthenticationManager authenticationManager,
                                                             ServerAccessDeniedHandler accessDeniedHandler,
-                                                            ServerAuthenticationEntryPoint authenticationEntryPoint) {
+                                                            ServerAuthenticationEntryPoint authenticationEntryPoint,
+                                                            AccessTokenService accessTokenService) {
         http.csrf().disable()
+                .addFilterAt(accessTokenFilter(accessTokenService, authenticationEntryPoint),
+                        SecurityWebFiltersOrder.HTTP_BASIC)
                 .httpBasic(httpBasicSpec -> httpBasicSpec
                         .authenticationManager(authenticationManager)
                         // when moving next line to exceptionHandlingSpecs, get empty body 401 for authentication failures (e.g. Invalid Credentials)
@@ -48,4 +55,18 @@ public class AccountWebSecurityConfig {
                 ).formLogin();
         return http.build();
     }
+
+    /**
+     * authentication filter for "Authorization: Bearer" access tokens issued by /api/auth/token. Requests without
+     * bearer token pass unchanged, invalid tokens are answered by the authentication entry point (401).
+     */
+    private AuthenticationWebFilter accessTokenFilter(AccessTokenService accessTokenService,
+                                                      ServerAuthenticationEntryPoint authenticationEntryPoint) {
+        AuthenticationWebFilter tokenFilter =
+                new AuthenticationWebFilter(new AccessTokenAuthenticationManager(accessTokenService));
+        tokenFilter.setServerAuthenticationConverter(new AccessTokenAuthenticationConverter());
+        tokenFilter.setAuthenticationFailureHandler(
+                new ServerAuthenticationEntryPointFailureHandler(authenticationEntryPoint));
+        return tokenFilter;
+    }
 }
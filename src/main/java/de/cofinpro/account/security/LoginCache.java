@@ -0,0 +1,68 @@
+package de.cofinpro.account.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import de.cofinpro.account.persistence.LoginReactiveRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * bounded principal cache in front of the ReactiveUserDetailsService. It holds the resolved Login entities with
+ * their roles keyed by the (lower case) email, evicts by size and time-to-live and is invalidated on every
+ * LoginChangedEvent. Hit, miss and eviction counts are exposed as "cache.*" actuator metrics (cache=principals).
+ * NOTE: the cached Login instances are shared - callers must not modify them.
+ */
+@Component
+public class LoginCache {
+
+    private final LoginReactiveRepository userRepository;
+    private final AsyncCache<String, Login> cache;
+
+    public LoginCache(LoginReactiveRepository userRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${account.principal-cache.max-size:10000}") long maxSize,
+                      @Value("${account.principal-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "principals");
+    }
+
+    /**
+     * retrieve the Login with its roles to the given email - from the cache if present, from the database else.
+     * Concurrent misses for the same email share one database load. An unknown email is not cached.
+     * @param email user's email key (case-insensitive)
+     * @return Mono of the Login with roles set, empty Mono if the user does not exist
+     */
+    public Mono<Login> findByEmail(String email) {
+        return Mono.fromFuture(cache.get(key(email), (key, executor) -> loadFromDatabase(email).toFuture()), true);
+    }
+
+    /**
+     * invalidates the cached principal of the user changed.
+     */
+    @EventListener
+    public void onLoginChanged(LoginChangedEvent event) {
+        cache.synchronous().invalidate(key(event.email()));
+    }
+
+    private Mono<Login> loadFromDatabase(String email) {
+        return userRepository.findWithRolesByEmail(email);
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,127 @@
+package de.cofinpro.account.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static de.cofinpro.account.configuration.AuthenticationConfiguration.SERVER_BUSY_ERRORMSG;
+
+/**
+ * dedicated execution subsystem for all password hashing (BCrypt encode and matches), that keeps the CPU-heavy
+ * work off the Netty event loop. It runs on a pool of worker threads sized to the available cores (or
+ * account.crypto.pool-size) with a bounded queue (account.crypto.queue-capacity). If the queue is saturated,
+ * tasks are rejected immediately, which is surfaced as 503 to the client.
+ * Metrics: account.crypto.queue.wait, account.crypto.execution (timers), account.crypto.rejected (counter)
+ * and account.crypto.queue.size (gauge).
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Timer queueWaitTimer;
+    private final Timer executionTimer;
+    private final Counter rejectedCounter;
+    private final Scheduler scheduler;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${account.crypto.pool-size:0}") int poolSize,
+                                   @Value("${account.crypto.queue-capacity:256}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueWaitTimer = meterRegistry.timer("account.crypto.queue.wait");
+        this.executionTimer = meterRegistry.timer("account.crypto.execution");
+        this.rejectedCounter = meterRegistry.counter("account.crypto.rejected");
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        InstrumentedExecutor executor = new InstrumentedExecutor(threads, queueCapacity);
+        Gauge.builder("account.crypto.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        this.scheduler = Schedulers.fromExecutorService(executor, "crypto");
+    }
+
+    /**
+     * encode a raw password on the crypto pool.
+     * @return Mono of the encoded password, 503 error Mono if the pool is saturated.
+     */
+    public Mono<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * check a raw password against an encoded one on the crypto pool.
+     * @return Mono of the check result, 503 error Mono if the pool is saturated.
+     */
+    public Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * the crypto pool as Reactor scheduler - e.g. for the authentication manager's password check.
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * map a task rejection of the saturated crypto pool to a 503 response exception - all other errors are returned
+     * unchanged.
+     */
+    public static Throwable mapRejection(Throwable throwable) {
+        return throwable instanceof RejectedExecutionException
+                ? new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SERVER_BUSY_ERRORMSG)
+                : throwable;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private <T> Mono<T> submit(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, PasswordHashingExecutor::mapRejection);
+    }
+
+    /**
+     * fixed size thread pool with bounded queue and abort policy, that records queue wait and execution time
+     * of every task and counts the rejections.
+     */
+    private class InstrumentedExecutor extends ThreadPoolExecutor {
+
+        InstrumentedExecutor(int threads, int queueCapacity) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory("crypto-"), new AbortPolicy());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            long enqueued = System.nanoTime();
+            try {
+                super.execute(() -> {
+                    queueWaitTimer.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+                    executionTimer.record(command);
+                });
+            } catch (RejectedExecutionException exception) {
+                rejectedCounter.increment();
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.cofinpro.account.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * opt-in (account.credential-cache.enabled) short-lived cache of successfully verified HTTP Basic credentials,
+ * that lets repeated requests with the same Basic header skip the BCrypt verification.
+ * Per user only the keyed HMAC-SHA256 of (email, password) is stored - never the plaintext. The HMAC key is generated
+ * randomly on startup and never leaves the process. Entries are invalidated on every LoginChangedEvent (password
+ * change, lock, deletion, role toggle).
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec hmacKey;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::createMac);
+    private final Cache<String, VerifiedCredential> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public VerifiedCredentialCache(MeterRegistry meterRegistry,
+                                   @Value("${account.credential-cache.enabled:false}") boolean enabled,
+                                   @Value("${account.credential-cache.max-size:10000}") long maxSize,
+                                   @Value("${account.credential-cache.ttl:30s}") Duration ttl) {
+        this.enabled = enabled;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.hmacKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+    }
+
+    /**
+     * look up a previous successful authentication for the given credentials.
+     * @return a fresh authenticated token with the cached principal, if email and password match a verified entry,
+     *         empty Optional else (or if the cache is disabled).
+     */
+    public Optional<Authentication> get(String email, String password) {
+        if (!enabled || email == null || password == null) {
+            return Optional.empty();
+        }
+        VerifiedCredential verified = cache.getIfPresent(key(email));
+        if (verified == null || !MessageDigest.isEqual(verified.mac(), mac(email, password))) {
+            return Optional.empty();
+        }
+        Authentication authentication = verified.authentication();
+        return Optional.of(UsernamePasswordAuthenticationToken.authenticated(authentication.getPrincipal(),
+                authentication.getCredentials(), authentication.getAuthorities()));
+    }
+
+    /**
+     * the current invalidation generation - to be taken before a verification, whose result is to be put.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * remember a successful authentication for the given credentials (replaces a previous entry of the user).
+     * The entry is not stored, if any invalidation took place since the given generation was taken - so a
+     * verification racing with e.g. a password change can never resurrect the old credentials.
+     */
+    public void put(String email, String password, Authentication authentication, long verifiedGeneration) {
+        if (enabled && email != null && password != null && verifiedGeneration == generation.get()) {
+            cache.put(key(email), new VerifiedCredential(mac(email, password), authentication));
+        }
+    }
+
+    /**
+     * invalidates the verified credential of the user changed.
+     */
+    @EventListener
+    public void onLoginChanged(LoginChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidate(key(event.email()));
+    }
+
+    private byte[] mac(String email, String password) {
+        return macs.get().doFinal((key(email) + '\0' + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac;
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("HMAC initialization failed", exception);
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private record VerifiedCredential(byte[] mac, Authentication authentication) {
+    }
+}
@@ -1,8 +1,10 @@
 DROP TABLE IF EXISTS SALARY;
+DROP TABLE IF EXISTS SALARY_STAGING;
 DROP TABLE IF EXISTS LOGIN_ROLES;
 DROP TABLE IF EXISTS LOGIN;
 DROP TABLE IF EXISTS ROLES;
 DROP TABLE IF EXISTS AUDIT;
+DROP TABLE IF EXISTS AUDIT_STATS;
 CREATE TABLE IF NOT EXISTS LOGIN (
                       id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
                       name VARCHAR (64),
@@ -16,9 +18,12 @@ CREATE TABLE IF NOT EXISTS SALARY (
                       id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
                       email VARCHAR_IGNORECASE (64) NOT NULL,
                       FOREIGN KEY(email) REFERENCES LOGIN(email),
-                      period VARCHAR (7) NOT NULL,
-                      salary BIGINT NOT NULL
+                      period INT NOT NULL,
+                      salary BIGINT NOT NULL,
+                      version BIGINT DEFAULT 0 NOT NULL
 );
+CREATE UNIQUE INDEX IF NOT EXISTS SALARY_EMAIL_PERIOD ON SALARY (email, period);
+CREATE INDEX IF NOT EXISTS SALARY_PERIOD_SALARY ON SALARY (period, salary);
 CREATE TABLE IF NOT EXISTS ROLES (
                       id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
                       user_role VARCHAR_IGNORECASE (20) UNIQUE NOT NULL
@@ -37,4 +42,24 @@ CREATE TABLE IF NOT EXISTS AUDIT (
                       subject VARCHAR_IGNORECASE (64),
                       object VARCHAR (128),
                       path VARCHAR (64) NOT NULL
-);
\ No newline at end of file
+);
+CREATE INDEX IF NOT EXISTS AUDIT_ACTION_ID ON AUDIT (action, id);
+CREATE INDEX IF NOT EXISTS AUDIT_SUBJECT_ID ON AUDIT (subject, id);
+CREATE INDEX IF NOT EXISTS AUDIT_PATH_ID ON AUDIT (path, id);
+CREATE INDEX IF NOT EXISTS AUDIT_DATE_ID ON AUDIT (date, id);
+CREATE TABLE IF NOT EXISTS AUDIT_STATS (
+                      day DATE NOT NULL,
+                      action VARCHAR_IGNORECASE (20) NOT NULL,
+                      subject VARCHAR_IGNORECASE (64) NOT NULL,
+                      events BIGINT NOT NULL,
+                      PRIMARY KEY (day, action, subject)
+);
+CREATE TABLE IF NOT EXISTS SALARY_STAGING (
+                      id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                      upload_id VARCHAR (36) NOT NULL,
+                      email VARCHAR_IGNORECASE (64) NOT NULL,
+                      period INT NOT NULL,
+                      salary BIGINT NOT NULL,
+                      staged_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS SALARY_STAGING_UPLOAD ON SALARY_STAGING (upload_id, email, period);
@@ -3,6 +3,7 @@ package de.cofinpro.account;
 import de.cofinpro.account.admin.LockUserToggleRequest;
 import de.cofinpro.account.admin.RoleToggleRequest;
 import de.cofinpro.account.audit.AuditEventResponse;
+import de.cofinpro.account.audit.AuditStatsResponse;
 import de.cofinpro.account.authentication.ChangepassRequest;
 import de.cofinpro.account.authentication.SignupRequest;
 import org.junit.jupiter.api.BeforeAll;
@@ -11,16 +12,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.IntStream;
 
 import static de.cofinpro.account.AccountReactiveAuthenticationIT.signup;
+import static de.cofinpro.account.configuration.AuditConfiguration.NEXT_CURSOR_HEADER;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest(properties = { "spring.r2dbc.url=r2dbc:h2:file://././src/test/resources/data/audit_test_db" })
 @AutoConfigureWebTestClient
@@ -194,6 +203,62 @@ class AccountReactiveAuditIT {
                         .orElseThrow().object(), equalTo("Unlock user ae@acme.com"));
     }
 
+    @Test
+    void whenEventsPagedAndFiltered_NextCursorLeadsToNextPage() {
+        giveAuditorRole();
+        webClient.get().uri("/api/security/events?action=create_user&limit=1")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isOk()
+                .expectHeader().valueEquals(NEXT_CURSOR_HEADER, "1")
+                .expectBody(AuditEventResponse[].class)
+                .value(list -> list.length, equalTo(1))
+                .value(list -> list[0].object(), equalTo("admin@acme.com"));
+        webClient.get().uri("/api/security/events?action=CREATE_USER&limit=1&afterId=1")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isOk()
+                .expectBody(AuditEventResponse[].class)
+                .value(list -> list[0].id(), equalTo(2L))
+                .value(list -> list[0].object(), equalTo("hw@acme.com"));
+        webClient.get().uri("/api/security/events?limit=0")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isBadRequest();
+        webClient.get().uri("/api/security/events?from=2022-13-01")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void whenEventStreamSubscribed_ReplayedAndNewEventsPushed() {
+        giveAuditorRole();
+        Flux<AuditEventResponse> stream = webClient.get().uri("/api/security/events/stream?afterId=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isOk()
+                .returnResult(AuditEventResponse.class).getResponseBody();
+        StepVerifier.create(stream.filter(event -> "CREATE_USER".equals(event.action())
+                        && List.of("hw@acme.com", "af@acme.com").contains(event.object())))
+                .assertNext(event -> assertEquals("hw@acme.com", event.object()))
+                .then(() -> signup(webClient, new SignupRequest("A", "F", "af@acme.com", "123456123456")))
+                .assertNext(event -> assertEquals("af@acme.com", event.object()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void whenStatisticsQueried_CreateUserEventsCounted() {
+        giveAuditorRole();
+        webClient.get().uri("/api/security/stats?action=create_user&groupBy=day")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isOk()
+                .expectBody(AuditStatsResponse[].class)
+                .value(list -> list[0].action(), equalTo("CREATE_USER"))
+                .value(list -> list[0].subject(), nullValue())
+                .value(list -> list[0].count() >= 2, equalTo(true));
+        webClient.get().uri("/api/security/stats?groupBy=week")
+                .headers(headers -> headers.setBasicAuth("hw@acme.com", "useruseruser"))
+                .exchange().expectStatus().isBadRequest();
+    }
+
     void giveAuditorRole() {
         webClient.put().uri("/api/admin/user/role")
                 .headers(headers -> headers.setBasicAuth("admin@acme.com", "attminattmin"))
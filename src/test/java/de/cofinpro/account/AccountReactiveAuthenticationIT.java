@@ -4,6 +4,7 @@ import de.cofinpro.account.authentication.ChangepassRequest;
 import de.cofinpro.account.authentication.ChangepassResponse;
 import de.cofinpro.account.authentication.SignupRequest;
 import de.cofinpro.account.authentication.SignupResponse;
+import de.cofinpro.account.authentication.TokenResponse;
 import de.cofinpro.account.domain.SalaryRecord;
 import de.cofinpro.account.persistence.Login;
 import de.cofinpro.account.persistence.LoginReactiveRepository;
@@ -25,6 +26,7 @@ import java.util.List;
 
 import static de.cofinpro.account.configuration.AuthenticationConfiguration.*;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(properties = { "spring.r2dbc.url=r2dbc:h2:file://././src/test/resources/data/auth_test_db" })
@@ -212,6 +214,37 @@ class AccountReactiveAuthenticationIT {
                         "\", \"path\": \"/api/auth/changepass\"}");
     }
 
+    @Test
+    void whenTokenRequested_ThenBearerAuthenticatesUntilPasswordChanged() {
+        signup(webClient, new SignupRequest("Tom", "Token", "t.token@acme.com", "secretsecret"));
+        TokenResponse token = webClient.post().uri("/api/auth/token")
+                .headers(headers -> headers.setBasicAuth("t.token@acme.com", "secretsecret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .returnResult().getResponseBody();
+        assertNotNull(token);
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBearerAuth(token.accessToken()))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.post().uri("/api/auth/token")
+                .headers(headers -> headers.setBearerAuth(token.accessToken()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().json("{\"message\": \"" + TOKEN_NEEDS_CREDENTIALS_ERRORMSG + "\"}");
+        webClient.post().uri("/api/auth/changepass")
+                .headers(headers -> headers.setBasicAuth("t.token@acme.com", "secretsecret"))
+                .bodyValue(new ChangepassRequest("secretsecret2"))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBearerAuth(token.accessToken()))
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().json("{\"message\": \"" + INVALID_TOKEN_ERRORMSG + "\"}");
+    }
+
     static void signup(WebTestClient webClient, SignupRequest request) {
         webClient.post().uri("/api/auth/signup")
                 .bodyValue(request)
@@ -2,6 +2,10 @@ package de.cofinpro.account;
 
 import de.cofinpro.account.admin.RoleToggleRequest;
 import de.cofinpro.account.authentication.SignupRequest;
+import de.cofinpro.account.domain.EmployeeReport;
+import de.cofinpro.account.domain.ImportJobStatus;
+import de.cofinpro.account.domain.IngestionProgress;
+import de.cofinpro.account.domain.PeriodReport;
 import de.cofinpro.account.domain.SalaryRecord;
 import de.cofinpro.account.domain.SalaryResponse;
 import de.cofinpro.account.domain.StatusResponse;
@@ -11,16 +15,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static de.cofinpro.account.AccountReactiveAuthenticationIT.signup;
 import static de.cofinpro.account.configuration.AccountConfiguration.*;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(properties = { "spring.r2dbc.url=r2dbc:h2:file://././src/test/resources/data/domain_test_db" })
 @AutoConfigureWebTestClient
@@ -155,7 +166,7 @@ class AccountReactiveDomainIT {
                 .exchange()
                 .expectStatus().isBadRequest()
                 .expectBody()
-                .jsonPath("$.message").value(equalTo(DUPLICATE_RECORDS_ERRORMSG));
+                .jsonPath("$.message").value(equalTo("Record 4: " + DUPLICATE_RECORDS_ERRORMSG));
     }
 
     @Test
@@ -171,7 +182,53 @@ class AccountReactiveDomainIT {
                 .exchange()
                 .expectStatus().isBadRequest()
                 .expectBody()
-                .jsonPath("$.message").value(equalTo(DUPLICATE_RECORDS_ERRORMSG));
+                .jsonPath("$.message").value(equalTo("Record 2: " + DUPLICATE_RECORDS_ERRORMSG
+                        + " | Record 4: " + DUPLICATE_RECORDS_ERRORMSG));
+    }
+
+    @Test
+    void whenStreamIngestedPerChunk_ValidChunksCommittedAndProgressReported() {
+        webClient.post().uri("/api/acct/payments/stream?commit=chunk")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2019", 5000),
+                        new SalaryRecord("p.d@acme.com", "02-2019", 5000)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(IngestionProgress.class)
+                .value(reports -> reports.get(0).status(), equalTo(IngestionProgress.Status.COMMITTED))
+                .value(reports -> reports.get(reports.size() - 1).chunk(), nullValue())
+                .value(reports -> reports.get(reports.size() - 1).committed(), equalTo(2L));
+        webClient.get().uri("/api/empl/payment?period=02-2019")
+                .headers(headers -> headers.setBasicAuth("p.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class).hasSize(1);
+    }
+
+    @Test
+    void whenStreamIngestedAllOrNothingWithError_NothingCommitted() {
+        webClient.post().uri("/api/acct/payments/stream")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2018", 5000),
+                        new SalaryRecord("not.there@acme.com", "02-2018", 5000)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(IngestionProgress.class)
+                .value(reports -> reports.get(0).errors(), equalTo(List.of("Record 1: " + NO_SUCH_EMPLOYEE_ERRORMSG)))
+                .value(reports -> reports.get(reports.size() - 1).status(), equalTo(IngestionProgress.Status.ROLLED_BACK));
+        webClient.get().uri("/api/empl/payment?period=01-2018")
+                .headers(headers -> headers.setBasicAuth("p.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class).hasSize(0);
+        webClient.post().uri("/api/acct/payments/stream?commit=sometimes")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of())
+                .exchange()
+                .expectStatus().isBadRequest();
     }
 
     @Test
@@ -195,6 +252,124 @@ class AccountReactiveDomainIT {
     }
 
 
+    @Test
+    void whenPutWithIfMatch_ThenUpdatedOnlyForMatchingVersion() {
+        webClient.post().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(new SalaryRecord("p.d@acme.com", "08-2020", 2000)))
+                .exchange()
+                .expectStatus().isOk();
+        String eTag = webClient.get().uri(uri -> uri.path("/api/acct/payments")
+                        .queryParam("employee", "P.D@acme.com").queryParam("period", "08-2020").build())
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody(SalaryRecord.class)
+                .isEqualTo(new SalaryRecord("p.d@acme.com", "08-2020", 2000))
+                .returnResult().getResponseHeaders().getETag();
+        webClient.put().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(new SalaryRecord("p.d@acme.com", "08-2020", 3000))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webClient.put().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(new SalaryRecord("p.d@acme.com", "08-2020", 4000))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.message").value(equalTo(VERSION_MISMATCH_ERRORMSG));
+        webClient.put().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .bodyValue(new SalaryRecord("p.d@acme.com", "09-2020", 4000))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(equalTo(NO_SUCH_SALES_RECORD_ERRORMSG));
+        webClient.get().uri(uri -> uri.path("/api/acct/payments")
+                        .queryParam("employee", "p.d@acme.com").queryParam("period", "09-2020").build())
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isNotFound();
+        webClient.get().uri(uri -> uri.path("/api/acct/payments").queryParam("employee", "p.d@acme.com").build())
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(equalTo(SALARY_KEY_REQUIRED_ERRORMSG));
+    }
+
+    @Test
+    void whenBulkPut_ThenAllUpdatedOrNotFoundRecordsReported() {
+        webClient.post().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2017", 2000),
+                        new SalaryRecord("p.d@acme.com", "02-2017", 2000)))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.put().uri("/api/acct/payments/bulk")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2017", 3000),
+                        new SalaryRecord("p.d@acme.com", "02-2017", 3000)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(StatusResponse.class)
+                .value(StatusResponse::status, equalTo("2 records " + UPDATED_SUCCESSFULLY));
+        webClient.put().uri("/api/acct/payments/bulk")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2017", 4000),
+                        new SalaryRecord("p.d@acme.com", "03-2017", 4000)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(equalTo("Record 1: " + NO_SUCH_SALES_RECORD_ERRORMSG));
+        webClient.get().uri("/api/empl/payment?period=01-2017")
+                .headers(headers -> headers.setBasicAuth("p.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class)
+                .value(list -> list.get(0).salary(), equalTo("30 dollar(s) 00 cent(s)"));
+    }
+
+    @Test
+    void whenSalariesChangedAfterGet_ThenCachedPayslipsInvalidated() {
+        signup(webClient, new SignupRequest("Carl", "Doe", "c.d@acme.com", "123456789012"));
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("c.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class).hasSize(0);
+        webClient.post().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(new SalaryRecord("c.d@acme.com", "01-2016", 1000)))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("c.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class).hasSize(1);
+        webClient.put().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(new SalaryRecord("c.d@acme.com", "01-2016", 2000))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.get().uri("/api/empl/payment?period=01-2016")
+                .headers(headers -> headers.setBasicAuth("c.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class)
+                .value(list -> list.get(0).salary(), equalTo("20 dollar(s) 00 cent(s)"));
+    }
+
     @Test
     void whenGetPayment_ThenSalaryResponseReturned() {
         signup(webClient, new SignupRequest("Jan", "Doe", "j.d@acme.com", "123456789012"));
@@ -236,4 +411,183 @@ class AccountReactiveDomainIT {
                 .jsonPath("$.message")
                 .value(equalTo("Wrong Date: Use mm-yyyy format!"));
     }
+
+    @Test
+    void whenGetPaymentInPeriodRange_ThenSalaryResponsesOfRangeReturned() {
+        signup(webClient, new SignupRequest("Ann", "Range", "a.r@acme.com", "123456789012"));
+        webClient.post().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("a.r@acme.com", "11-2021", 1100),
+                        new SalaryRecord("a.r@acme.com", "12-2021", 1200),
+                        new SalaryRecord("a.r@acme.com", "01-2022", 100),
+                        new SalaryRecord("a.r@acme.com", "03-2022", 300)))
+                .exchange()
+                .expectStatus().isOk();
+        // first from the database by range query, then from the cached payslips
+        for (int i = 0; i < 2; i++) {
+            webClient.get().uri(uri -> uri.path("/api/empl/payment").queryParam("from", "12-2021")
+                            .queryParam("to", "02-2022").build())
+                    .headers(headers -> headers.setBasicAuth("a.r@acme.com", "123456789012"))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(SalaryResponse[].class)
+                    .value(list -> list.length, equalTo(2))
+                    .value(list -> list[0].period(), equalTo("December-2021"))
+                    .value(list -> list[1].period(), equalTo("January-2022"));
+            webClient.get().uri("/api/empl/payment")
+                    .headers(headers -> headers.setBasicAuth("a.r@acme.com", "123456789012"))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(SalaryResponse[].class)
+                    .value(list -> list.length, equalTo(4));
+        }
+        webClient.get().uri(uri -> uri.path("/api/empl/payment").queryParam("from", "01-2022").build())
+                .headers(headers -> headers.setBasicAuth("a.r@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SalaryResponse[].class)
+                .value(list -> list.length, equalTo(2))
+                .value(list -> list[1].period(), equalTo("March-2022"));
+        webClient.get().uri(uri -> uri.path("/api/empl/payment").queryParam("from", "02-2022")
+                        .queryParam("to", "01-2022").build())
+                .headers(headers -> headers.setBasicAuth("a.r@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message")
+                .value(equalTo(INVALID_PERIOD_RANGE_ERRORMSG));
+        webClient.get().uri(uri -> uri.path("/api/empl/payment").queryParam("period", "01-2022")
+                        .queryParam("to", "03-2022").build())
+                .headers(headers -> headers.setBasicAuth("a.r@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message")
+                .value(equalTo(PERIOD_WITH_RANGE_ERRORMSG));
+    }
+
+    @Test
+    void whenReportsRequested_ThenAggregatesPerPeriodAndEmployeeReturned() {
+        signup(webClient, new SignupRequest("Rita", "Report", "r.r@acme.com", "123456789012"));
+        signup(webClient, new SignupRequest("Sam", "Report", "s.r@acme.com", "123456789012"));
+        webClient.post().uri("/api/acct/payments")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("r.r@acme.com", "01-2031", 100000),
+                        new SalaryRecord("s.r@acme.com", "01-2031", 50001),
+                        new SalaryRecord("r.r@acme.com", "02-2031", 110000)))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.get().uri("/api/acct/reports/period/01-2031")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PeriodReport.class)
+                .isEqualTo(new PeriodReport("01-2031", 2, BigDecimal.valueOf(150001), 50001, 100000, 75001));
+        webClient.get().uri("/api/acct/reports/period/03-2031")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PeriodReport.class)
+                .isEqualTo(new PeriodReport("03-2031", 0, BigDecimal.ZERO, 0, 0, 0));
+        webClient.get().uri(uri -> uri.path("/api/acct/reports/periods").queryParam("from", "01-2031").build())
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PeriodReport.class)
+                .isEqualTo(List.of(
+                        new PeriodReport("01-2031", 2, BigDecimal.valueOf(150001), 50001, 100000, 75001),
+                        new PeriodReport("02-2031", 1, BigDecimal.valueOf(110000), 110000, 110000, 110000)));
+        webClient.get().uri(uri -> uri.path("/api/acct/reports/employees").queryParam("from", "01-2031")
+                        .queryParam("to", "12-2031").build())
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EmployeeReport.class)
+                .isEqualTo(List.of(
+                        new EmployeeReport("r.r@acme.com", 2, BigDecimal.valueOf(210000), 100000, 110000, 105000),
+                        new EmployeeReport("s.r@acme.com", 1, BigDecimal.valueOf(50001), 50001, 50001, 50001)));
+        webClient.get().uri("/api/acct/reports/period/13-2031")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message")
+                .value(equalTo(WRONG_DATE_ERRORMSG));
+        webClient.get().uri("/api/acct/reports/periods")
+                .headers(headers -> headers.setBasicAuth("r.r@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void whenImportJobsSubmitted_ThenProcessedInBackgroundAndStatusPolled() throws InterruptedException {
+        String location = webClient.post().uri("/api/acct/imports")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "01-2040", 5000),
+                        new SalaryRecord("p.d@acme.com", "02-2040", 5000)))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody(ImportJobStatus.class)
+                .value(ImportJobStatus::records, equalTo(2L))
+                .returnResult().getResponseHeaders().getLocation().toString();
+        ImportJobStatus status = awaitImport(location);
+        assertEquals(ImportJobStatus.Status.COMMITTED, status.status());
+        assertEquals(2, status.processed());
+        assertEquals(2, status.committed());
+        assertTrue(status.errors().isEmpty());
+        webClient.get().uri(uri -> uri.path("/api/empl/payment").queryParam("from", "01-2040").build())
+                .headers(headers -> headers.setBasicAuth("p.d@acme.com", "123456789012"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(SalaryResponse.class).hasSize(2);
+
+        location = webClient.post().uri("/api/acct/imports")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(List.of(
+                        new SalaryRecord("p.d@acme.com", "03-2040", 5000),
+                        new SalaryRecord("not.there@acme.com", "03-2040", 5000)))
+                .exchange()
+                .expectStatus().isAccepted()
+                .returnResult(ImportJobStatus.class).getResponseHeaders().getLocation().toString();
+        status = awaitImport(location);
+        assertEquals(ImportJobStatus.Status.ROLLED_BACK, status.status());
+        assertEquals(List.of("Record 1: " + NO_SUCH_EMPLOYEE_ERRORMSG), status.errors());
+        webClient.get().uri("/api/acct/imports/unknown-job")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void whenImportJobExceedsMaxRecords_Then413AndNothingQueued() {
+        List<SalaryRecord> salaryRecords = IntStream.range(0, 101)
+                .mapToObj(i -> new SalaryRecord("p.d@acme.com", "01-2041", 5000))
+                .toList();
+        webClient.post().uri("/api/acct/imports")
+                .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                .bodyValue(salaryRecords)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE)
+                .expectBody()
+                .jsonPath("$.message").value(equalTo(IMPORT_TOO_LARGE_ERRORMSG.formatted(100)));
+    }
+
+    private ImportJobStatus awaitImport(String location) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ImportJobStatus status = webClient.get().uri(location)
+                    .headers(headers -> headers.setBasicAuth("acct@acme.com", "acctacctacct"))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ImportJobStatus.class)
+                    .returnResult().getResponseBody();
+            if (status.status() != ImportJobStatus.Status.QUEUED && status.status() != ImportJobStatus.Status.RUNNING) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("import job not finished in time");
+    }
 }
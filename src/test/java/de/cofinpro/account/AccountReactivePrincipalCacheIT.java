@@ -0,0 +1,167 @@
+package de.cofinpro.account;
+
+import de.cofinpro.account.admin.LockUserToggleRequest;
+import de.cofinpro.account.admin.RoleToggleRequest;
+import de.cofinpro.account.authentication.ChangepassRequest;
+import de.cofinpro.account.authentication.SignupRequest;
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static de.cofinpro.account.AccountReactiveAuthenticationIT.signup;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * every change of a user's LOGIN or LOGIN_ROLES rows publishes a LoginChangedEvent - and the next authentication
+ * of the user loads the changed Login instead of the principal cached before.
+ */
+@SpringBootTest(properties = { "spring.r2dbc.url=r2dbc:h2:file://././src/test/resources/data/principal_cache_test_db" })
+@AutoConfigureWebTestClient
+class AccountReactivePrincipalCacheIT {
+
+    static boolean adminSignedUp = false;
+
+    @Autowired
+    WebTestClient webClient;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    LoginChangedRecorder loginChangedRecorder;
+
+    static final Path TEST_DB_PATH = Path.of("./src/test/resources/data/principal_cache_test_db.mv.db");
+
+    @BeforeAll
+    static void dbSetup() throws IOException {
+        Files.deleteIfExists(TEST_DB_PATH);
+        Files.copy(Path.of("./src/test/resources/data/account_template.mv.db"), TEST_DB_PATH);
+    }
+
+    @BeforeEach
+    void setup() {
+        if (!adminSignedUp) {
+            signup(webClient, new SignupRequest("system", "admin", "admin@acme.com", "attminattmin"));
+            adminSignedUp = true;
+        }
+    }
+
+    @Test
+    void whenRoleToggled_EventPublishedAndRolesReloaded() {
+        signupAndCache("rt@acme.com");
+        webClient.get().uri("/api/acct/reports/periods")
+                .headers(headers -> headers.setBasicAuth("rt@acme.com", "123456789012"))
+                .exchange().expectStatus().isForbidden();
+        webClient.put().uri("/api/admin/user/role")
+                .headers(headers -> headers.setBasicAuth("admin@acme.com", "attminattmin"))
+                .bodyValue(new RoleToggleRequest("rt@acme.com", "ACCOUNTANT", "grant"))
+                .exchange().expectStatus().isOk();
+        assertPublished("rt@acme.com");
+
+        double misses = principalMisses();
+        webClient.get().uri("/api/acct/reports/periods")
+                .headers(headers -> headers.setBasicAuth("rt@acme.com", "123456789012"))
+                .exchange().expectStatus().isOk();
+        assertTrue(principalMisses() > misses);
+    }
+
+    @Test
+    void whenUserLocked_EventPublishedAndLockReloaded() {
+        signupAndCache("lk@acme.com");
+        webClient.put().uri("/api/admin/user/access")
+                .headers(headers -> headers.setBasicAuth("admin@acme.com", "attminattmin"))
+                .bodyValue(new LockUserToggleRequest("lk@acme.com", "lock"))
+                .exchange().expectStatus().isOk();
+        assertPublished("lk@acme.com");
+
+        double misses = principalMisses();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("lk@acme.com", "123456789012"))
+                .exchange().expectStatus().isUnauthorized();
+        assertTrue(principalMisses() > misses);
+    }
+
+    @Test
+    void whenUserDeleted_EventPublishedAndUserNotAuthenticated() {
+        signupAndCache("dl@acme.com");
+        webClient.delete().uri("/api/admin/user/dl@acme.com")
+                .headers(headers -> headers.setBasicAuth("admin@acme.com", "attminattmin"))
+                .exchange().expectStatus().isOk();
+        assertPublished("dl@acme.com");
+
+        double misses = principalMisses();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("dl@acme.com", "123456789012"))
+                .exchange().expectStatus().isUnauthorized();
+        assertTrue(principalMisses() > misses);
+    }
+
+    @Test
+    void whenPasswordChanged_EventPublishedAndOnlyNewPasswordAccepted() {
+        signupAndCache("cp@acme.com");
+        webClient.post().uri("/api/auth/changepass")
+                .headers(headers -> headers.setBasicAuth("cp@acme.com", "123456789012"))
+                .bodyValue(new ChangepassRequest("qwertzqwertz"))
+                .exchange().expectStatus().isOk();
+        assertPublished("cp@acme.com");
+
+        double misses = principalMisses();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("cp@acme.com", "123456789012"))
+                .exchange().expectStatus().isUnauthorized();
+        assertTrue(principalMisses() > misses);
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth("cp@acme.com", "qwertzqwertz"))
+                .exchange().expectStatus().isOk();
+    }
+
+    /**
+     * sign the user up and authenticate twice - the second authentication is served from the principal cache.
+     */
+    private void signupAndCache(String email) {
+        signup(webClient, new SignupRequest("Hans", "Wurst", email, "123456789012"));
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth(email, "123456789012"))
+                .exchange().expectStatus().isOk();
+        double misses = principalMisses();
+        webClient.get().uri("/api/empl/payment")
+                .headers(headers -> headers.setBasicAuth(email, "123456789012"))
+                .exchange().expectStatus().isOk();
+        assertEquals(misses, principalMisses());
+    }
+
+    private void assertPublished(String email) {
+        assertTrue(loginChangedRecorder.events.stream().map(LoginChangedEvent::email).anyMatch(email::equalsIgnoreCase),
+                () -> "no LoginChangedEvent for " + email + " in " + loginChangedRecorder.events);
+    }
+
+    private double principalMisses() {
+        return meterRegistry.get("cache.gets").tags("cache", "principals", "result", "miss")
+                .functionCounter().count();
+    }
+
+    @TestConfiguration
+    static class LoginChangedRecorder {
+
+        final List<LoginChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onLoginChanged(LoginChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
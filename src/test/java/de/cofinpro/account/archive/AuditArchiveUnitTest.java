@@ -0,0 +1,141 @@
+package de.cofinpro.account.archive;
+
+import de.cofinpro.account.persistence.AuditEventQuery;
+import de.cofinpro.account.persistence.SecurityEvent;
+import de.cofinpro.account.persistence.SecurityEventReactiveRepository;
+import de.cofinpro.account.persistence.SecurityEventSearchRepositoryImpl;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditArchiveUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+    static final LocalDate CLOSED_MONTH = LocalDate.of(2022, 9, 1);
+
+    @TempDir
+    Path tempDir;
+
+    R2dbcEntityTemplate entityTemplate;
+    List<AuditArchive> archives = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        entityTemplate = new R2dbcEntityTemplate(ConnectionFactories.get(
+                "r2dbc:h2:mem:///audit-archive-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        createAuditTable();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archives.forEach(AuditArchive::destroy);
+    }
+
+    @Test
+    void whenPagedOverArchiveAndDatabase_AllEventsInIdOrderWithoutGapsOrDuplicates() throws IOException {
+        insertEvents(CLOSED_MONTH, 5);
+        insertEvents(LocalDate.now(), 3);
+        AuditArchive archive = archive();
+        archive.archiveClosedPeriods().block(TIMEOUT);
+
+        assertEquals(1, countFiles());
+        assertEquals(3, auditRows());
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L), List.of(7L, 8L)), pageIds(archive, 3));
+        assertEquals(List.of(List.of(6L, 7L, 8L)), pageIds(archive, 10, 5));
+    }
+
+    @Test
+    void whenAuditTableRecreated_NewIdsStartBehindArchive() throws IOException {
+        insertEvents(CLOSED_MONTH, 5);
+        archive().archiveClosedPeriods().block(TIMEOUT);
+        entityTemplate.getDatabaseClient().sql("DROP TABLE AUDIT").then().block(TIMEOUT);
+        createAuditTable();
+
+        AuditArchive archive = archive();
+        insertEvents(LocalDate.now(), 2);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L, 4L), List.of(5L, 6L, 7L)), pageIds(archive, 4));
+    }
+
+    AuditArchive archive() throws IOException {
+        SecurityEventReactiveRepository auditRepository = mock(SecurityEventReactiveRepository.class);
+        SecurityEventSearchRepositoryImpl searchRepository = new SecurityEventSearchRepositoryImpl(entityTemplate);
+        when(auditRepository.findPage(any())).thenAnswer(invocation -> searchRepository.findPage(
+                invocation.getArgument(0)));
+        AuditArchive archive = new AuditArchive(auditRepository, entityTemplate, tempDir.toString(),
+                AuditArchive.SegmentPeriod.MONTH, Duration.ofHours(1));
+        archive.afterSingletonsInstantiated();
+        archives.add(archive);
+        return archive;
+    }
+
+    List<List<Long>> pageIds(AuditArchive archive, int limit) {
+        return pageIds(archive, limit, 0);
+    }
+
+    /**
+     * page through all events with the id of the last event of a page as cursor of the next one.
+     */
+    List<List<Long>> pageIds(AuditArchive archive, int limit, long afterId) {
+        List<List<Long>> pages = new ArrayList<>();
+        List<Long> page = ids(archive, afterId, limit);
+        while (!page.isEmpty()) {
+            pages.add(page);
+            page = ids(archive, page.get(page.size() - 1), limit);
+        }
+        return pages;
+    }
+
+    List<Long> ids(AuditArchive archive, long afterId, int limit) {
+        return archive.findPage(new AuditEventQuery(afterId, limit, null, null, null, null, null))
+                .map(SecurityEvent::getId)
+                .collectList()
+                .block(TIMEOUT);
+    }
+
+    void createAuditTable() {
+        entityTemplate.getDatabaseClient().sql("""
+                CREATE TABLE AUDIT (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL, date DATE NOT NULL,
+                    action VARCHAR_IGNORECASE (20) NOT NULL, subject VARCHAR_IGNORECASE (64), object VARCHAR (128),
+                    path VARCHAR (64) NOT NULL)""").then().block(TIMEOUT);
+    }
+
+    void insertEvents(LocalDate date, int count) {
+        DatabaseClient databaseClient = entityTemplate.getDatabaseClient();
+        LongStream.range(0, count).forEach(i -> databaseClient.sql("""
+                        INSERT INTO AUDIT (date, action, subject, object, path)
+                        VALUES ($1, 'LOGIN_FAILED', 'hw@acme.com', '/api/empl/payment', '/api/empl/payment')""")
+                .bind(0, date)
+                .then().block(TIMEOUT));
+    }
+
+    long auditRows() {
+        return entityTemplate.getDatabaseClient().sql("SELECT COUNT(*) AS events FROM AUDIT")
+                .map(row -> row.get("events", Long.class)).one().block(TIMEOUT);
+    }
+
+    long countFiles() throws IOException {
+        try (var files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.cofinpro.account.archive;
+
+import de.cofinpro.account.persistence.AuditEventQuery;
+import de.cofinpro.account.persistence.SecurityEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentUnitTest {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2022, 9, 1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void whenSegmentWritten_allEventsStreamedBack() throws IOException {
+        AuditSegment segment = writeSegment(1000);
+        assertEquals(1000, segment.size());
+        assertEquals(1, segment.firstId());
+        assertEquals(1000, segment.lastId());
+        List<SecurityEvent> events = segment.stream().toList();
+        assertEquals(1000, events.size());
+        assertEquals(event(500), events.get(499));
+        assertNull(events.get(2).getSubject());
+    }
+
+    @Test
+    void whenQueriedAfterId_pageStartsBehindCursor() throws IOException {
+        AuditSegment segment = writeSegment(1000);
+        List<SecurityEvent> page = segment.find(new AuditEventQuery(700, 10, null, null, null, null, null));
+        assertEquals(10, page.size());
+        assertEquals(701, page.get(0).getId());
+        assertEquals(710, page.get(9).getId());
+        assertTrue(segment.find(new AuditEventQuery(1000, 10, null, null, null, null, null)).isEmpty());
+    }
+
+    @Test
+    void whenQueriedWithFilters_onlyMatchingEventsReturned() throws IOException {
+        AuditSegment segment = writeSegment(1000);
+        List<SecurityEvent> page = segment.find(new AuditEventQuery(0, 1000, "login_failed", "HW@acme.com",
+                "/api/empl/payment", FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(11)));
+        assertFalse(page.isEmpty());
+        assertTrue(page.stream().allMatch(event -> "LOGIN_FAILED".equals(event.getAction())
+                && !event.getDate().isBefore(FIRST_DAY.plusDays(10))
+                && !event.getDate().isAfter(FIRST_DAY.plusDays(11))));
+        assertTrue(segment.find(new AuditEventQuery(0, 10, null, null, null,
+                FIRST_DAY.plusMonths(1), null)).isEmpty());
+    }
+
+    @Test
+    void whenFieldsExceedShortLength_writtenAndReadBackUnchanged() throws IOException {
+        String longObject = "ä".repeat(40_000);
+        String longPath = "/api/" + "x".repeat(70_000);
+        Path target = tempDir.resolve("audit-2022-09.seg");
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(target)) {
+            writer.append(event(1).setObject(longObject).setPath(longPath));
+            writer.append(event(2));
+            writer.finish();
+        }
+        List<SecurityEvent> events = AuditSegment.open(target).stream().toList();
+        assertEquals(2, events.size());
+        assertEquals(longObject, events.get(0).getObject());
+        assertEquals(longPath, events.get(0).getPath());
+        assertEquals(event(2), events.get(1));
+    }
+
+    @Test
+    void whenWriterNotFinished_noSegmentLeft() throws IOException {
+        Path target = tempDir.resolve("audit-2022-09.seg");
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(target)) {
+            writer.append(event(1));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(event(1)));
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private AuditSegment writeSegment(int events) throws IOException {
+        Path target = tempDir.resolve("audit-2022-09.seg");
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(target)) {
+            for (int id = 1; id <= events; id++) {
+                writer.append(event(id));
+            }
+            writer.finish();
+        }
+        return AuditSegment.open(target);
+    }
+
+    private static SecurityEvent event(long id) {
+        return SecurityEvent.builder().id(id).date(FIRST_DAY.plusDays(id / 40))
+                .action(id % 2 == 0 ? "LOGIN_FAILED" : "ACCESS_DENIED")
+                .subject(id % 3 == 0 ? null : "hw@acme.com")
+                .object("/api/empl/payment").path("/api/empl/payment").build();
+    }
+}
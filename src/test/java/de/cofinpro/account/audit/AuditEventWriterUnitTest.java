@@ -0,0 +1,139 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.SecurityEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static de.cofinpro.account.audit.AuditEventWriter.Durability.FIRE_AND_FORGET;
+import static de.cofinpro.account.audit.AuditEventWriter.Durability.WAIT_FOR_FLUSH;
+import static de.cofinpro.account.audit.AuditEventWriter.OverflowPolicy.CALLER_RUNS;
+import static de.cofinpro.account.audit.AuditEventWriter.OverflowPolicy.DROP;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AuditEventWriterUnitTest {
+
+    static final Duration NO_TICK = Duration.ofHours(1);
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    DatabaseClient databaseClient;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///audit-writer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                CREATE TABLE AUDIT (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL, date DATE NOT NULL,
+                    action VARCHAR_IGNORECASE (20) NOT NULL, subject VARCHAR_IGNORECASE (64), object VARCHAR (128),
+                    path VARCHAR (64) NOT NULL)""").then().block(TIMEOUT);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void whenWriteNotSubscribed_NothingQueued() {
+        AuditEventWriter writer = writer(FIRE_AND_FORGET, CALLER_RUNS, 10, 10);
+        Mono<SecurityEvent> pending = writer.write(event(0));
+        assertEquals(0, queueSize());
+
+        pending.block(TIMEOUT);
+        assertEquals(1, queueSize());
+        writer.destroy();
+        assertEquals(1, auditRows());
+    }
+
+    @Test
+    void whenBatchSizeReached_BatchFlushedAndRestOnShutdown() throws InterruptedException {
+        AuditEventWriter writer = writer(FIRE_AND_FORGET, CALLER_RUNS, 100, 3);
+        Flux.range(0, 3).concatMap(i -> writer.write(event(i))).blockLast(TIMEOUT);
+        awaitAuditRows(3);
+        assertEquals(1, meterRegistry.get("account.audit.batch.size").summary().count());
+
+        // below batch size and no max-delay tick - the events stay queued until shutdown
+        Flux.range(3, 2).concatMap(i -> writer.write(event(i))).blockLast(TIMEOUT);
+        Thread.sleep(100);
+        assertEquals(3, auditRows());
+        assertEquals(2, queueSize());
+        writer.destroy();
+        assertEquals(5, auditRows());
+        assertEquals(0, queueSize());
+        assertEquals(2, meterRegistry.get("account.audit.batch.size").summary().count());
+    }
+
+    @Test
+    void whenWaitForFlush_EventPersistedWithIdWithoutWaitingForMaxDelay() {
+        AuditEventWriter writer = writer(WAIT_FOR_FLUSH, CALLER_RUNS, 100, 100);
+        SecurityEvent event = writer.write(event(0)).block(TIMEOUT);
+
+        assertNotNull(event);
+        assertTrue(event.getId() > 0);
+        assertEquals(1, auditRows());
+        writer.destroy();
+    }
+
+    @Test
+    void whenQueueFullAndDropPolicy_EventsDroppedAndCounted() {
+        AuditEventWriter writer = writer(FIRE_AND_FORGET, DROP, 1, 100);
+        Flux.range(0, 3).concatMap(i -> writer.write(event(i))).blockLast(TIMEOUT);
+
+        assertEquals(2, meterRegistry.get("account.audit.dropped").counter().count());
+        assertEquals(0, auditRows());
+        writer.destroy();
+        assertEquals(1, auditRows());
+    }
+
+    @Test
+    void whenQueueFullAndCallerRunsPolicy_EventWrittenDirectly() {
+        AuditEventWriter writer = writer(FIRE_AND_FORGET, CALLER_RUNS, 1, 100);
+        Flux.range(0, 2).concatMap(i -> writer.write(event(i))).blockLast(TIMEOUT);
+
+        assertEquals(1, auditRows());
+        assertEquals(1, queueSize());
+        writer.destroy();
+        assertEquals(2, auditRows());
+    }
+
+    @Test
+    void whenShutdownWhileFlushing_AllQueuedEventsWritten() {
+        AuditEventWriter writer = writer(FIRE_AND_FORGET, CALLER_RUNS, 10000, 10);
+        Flux.range(0, 1000).concatMap(i -> writer.write(event(i))).blockLast(TIMEOUT);
+
+        writer.destroy();
+        assertEquals(1000, auditRows());
+    }
+
+    AuditEventWriter writer(AuditEventWriter.Durability durability, AuditEventWriter.OverflowPolicy overflowPolicy,
+                            int queueCapacity, int batchSize) {
+        return new AuditEventWriter(databaseClient, mock(AuditEventBroadcaster.class), mock(AuditStatistics.class),
+                meterRegistry, durability, overflowPolicy, queueCapacity, batchSize, NO_TICK);
+    }
+
+    static SecurityEvent event(int i) {
+        return SecurityEvent.builder().action("CREATE_USER").subject("user" + i + "@acme.com")
+                .object("user" + i + "@acme.com").path("/api/auth/signup").build();
+    }
+
+    double queueSize() {
+        return meterRegistry.get("account.audit.queue.size").gauge().value();
+    }
+
+    long auditRows() {
+        return databaseClient.sql("SELECT COUNT(*) AS events FROM AUDIT")
+                .map(row -> row.get("events", Long.class)).one().block(TIMEOUT);
+    }
+
+    void awaitAuditRows(long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && auditRows() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, auditRows());
+    }
+}
@@ -0,0 +1,87 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.SecurityEvent;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static de.cofinpro.account.audit.AuditStatistics.GroupBy.DAY;
+import static de.cofinpro.account.audit.AuditStatistics.GroupBy.DAY_SUBJECT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditStatisticsUnitTest {
+
+    static final Duration NO_TICK = Duration.ofHours(1);
+    static final Duration TIMEOUT = Duration.ofSeconds(10);
+    static final LocalDate DAY_ONE = LocalDate.of(2023, 4, 1);
+
+    DatabaseClient databaseClient;
+    AuditStatistics statistics;
+
+    @BeforeEach
+    void setup() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///audit-stats-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                CREATE TABLE AUDIT_STATS (day DATE NOT NULL, action VARCHAR_IGNORECASE (20) NOT NULL,
+                    subject VARCHAR_IGNORECASE (64) NOT NULL, events BIGINT NOT NULL,
+                    PRIMARY KEY (day, action, subject))""").then().block(TIMEOUT);
+        statistics = new AuditStatistics(databaseClient, NO_TICK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.destroy();
+    }
+
+    @Test
+    void whenFlushed_CountsUnchangedAndPersisted() {
+        statistics.record(List.of(event("A@acme.com"), event("a@acme.com"), event("b@acme.com")));
+        List<AuditStatsResponse> before = query();
+
+        statistics.flush().block(TIMEOUT);
+        assertEquals(before, query());
+        assertEquals(List.of(new AuditStatsResponse(DAY_ONE, "LOGIN_FAILED", "a@acme.com", 2),
+                new AuditStatsResponse(DAY_ONE, "LOGIN_FAILED", "b@acme.com", 1)), before);
+        assertEquals(3L, persistedEvents());
+    }
+
+    @Test
+    void whenQueriesOverlapFlushes_EveryEventCountedOnce() {
+        for (int i = 1; i <= 200; i++) {
+            statistics.record(List.of(event("user" + i % 7 + "@acme.com")));
+            long expected = i;
+            Mono<Long> total = statistics.query(null, null, null, null, DAY)
+                    .map(AuditStatsResponse::count)
+                    .reduce(0L, Long::sum)
+                    .subscribeOn(Schedulers.parallel());
+            Mono.zip(statistics.flush().subscribeOn(Schedulers.parallel()).thenReturn(true), total)
+                    .doOnNext(result -> assertEquals(expected, result.getT2()))
+                    .block(TIMEOUT);
+        }
+        assertEquals(200L, persistedEvents());
+    }
+
+    List<AuditStatsResponse> query() {
+        return statistics.query(DAY_ONE, DAY_ONE, "login_failed", null, DAY_SUBJECT).collectList().block(TIMEOUT);
+    }
+
+    static SecurityEvent event(String subject) {
+        return SecurityEvent.builder().date(DAY_ONE).action("LOGIN_FAILED").subject(subject)
+                .object("/api/empl/payment").path("/api/empl/payment").build();
+    }
+
+    long persistedEvents() {
+        return databaseClient.sql("SELECT CAST(SUM(events) AS BIGINT) AS events FROM AUDIT_STATS")
+                .map(row -> row.get("events", Long.class)).one().block(TIMEOUT);
+    }
+}
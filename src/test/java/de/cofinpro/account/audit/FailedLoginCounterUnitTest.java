@@ -0,0 +1,103 @@
+package de.cofinpro.account.audit;
+
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static de.cofinpro.account.configuration.AdminConfiguration.LOGIN_FAILED_LIMIT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailedLoginCounterUnitTest {
+
+    final MutableClock clock = new MutableClock();
+    final FailedLoginCounter counter = new FailedLoginCounter(Duration.ofMinutes(15), clock);
+
+    @Test
+    void whenConcurrentFailures_lockTriggeredExactlyOnce() {
+        AtomicInteger locks = new AtomicInteger();
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            if (counter.recordFailure("hw@acme.com", 0).lockTriggered()) {
+                locks.incrementAndGet();
+            }
+        });
+        assertEquals(1, locks.get());
+        assertEquals(LOGIN_FAILED_LIMIT, counter.failures("HW@acme.com"));
+    }
+
+    @Test
+    void whenPersistedFailuresGiven_counterStartsFromThem() {
+        assertFalse(counter.recordFailure("hw@acme.com", LOGIN_FAILED_LIMIT - 2).lockTriggered());
+        assertTrue(counter.recordFailure("hw@acme.com", 0).lockTriggered());
+    }
+
+    @Test
+    void whenFailuresLeaveWindow_theyExpire() {
+        counter.recordFailure("hw@acme.com", 0);
+        clock.advance(Duration.ofMinutes(10));
+        counter.recordFailure("hw@acme.com", 0);
+        assertEquals(2, counter.failures("hw@acme.com"));
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals(1, counter.failures("hw@acme.com"));
+        clock.advance(Duration.ofMinutes(10));
+        assertEquals(Map.of("hw@acme.com", 0), counter.drainDirty());
+    }
+
+    @Test
+    void whenDrained_changedCountersReturnedOnce() {
+        counter.recordFailure("hw@acme.com", 0);
+        counter.recordFailure("hw@acme.com", 0);
+        counter.recordFailure("jw@acme.com", 0);
+        assertEquals(Map.of("hw@acme.com", 2, "jw@acme.com", 1), counter.drainDirty());
+        assertTrue(counter.drainDirty().isEmpty());
+    }
+
+    @Test
+    void whenReset_persistedFailuresOnlyRelevantWithoutCounter() {
+        assertTrue(counter.reset("hw@acme.com", 2));
+        assertFalse(counter.reset("hw@acme.com", 2));
+        counter.recordFailure("hw@acme.com", 0);
+        assertTrue(counter.reset("HW@acme.com", 0));
+        assertEquals(0, counter.failures("hw@acme.com"));
+        assertTrue(counter.drainDirty().isEmpty());
+    }
+
+    @Test
+    void whenLoginChanged_counterDropped() {
+        counter.recordFailure("hw@acme.com", 0);
+        counter.onLoginChanged(new LoginChangedEvent("HW@acme.com"));
+        assertEquals(0, counter.failures("hw@acme.com"));
+        assertTrue(counter.drainDirty().isEmpty());
+        assertTrue(counter.reset("hw@acme.com", 1));
+    }
+
+    static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2022-10-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
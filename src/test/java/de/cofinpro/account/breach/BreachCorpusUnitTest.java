@@ -0,0 +1,93 @@
+package de.cofinpro.account.breach;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreachCorpusUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void whenCorpusBuiltInChunks_allDistinctPasswordsContained() throws IOException {
+        Path list = tempDir.resolve("list.txt");
+        List<String> passwords = IntStream.range(0, 1000).mapToObj(i -> "password-" + i % 700).toList();
+        Files.write(list, passwords);
+        Path corpusFile = tempDir.resolve("corpus.bin");
+
+        assertEquals(700, new BreachCorpusBuilder(64).build(list, corpusFile));
+        BreachCorpus corpus = BreachCorpus.load(corpusFile);
+        assertEquals(700, corpus.size());
+        assertTrue(passwords.stream().allMatch(corpus::containsPassword));
+        assertFalse(corpus.containsPassword("password-700"));
+        assertFalse(corpus.containsPassword("some secret"));
+    }
+
+    @Test
+    void whenSha1HexLinesGiven_hashesTakenAsIs() throws IOException {
+        Path list = tempDir.resolve("list.txt");
+        String sha1Hex = HexFormat.of().withUpperCase().formatHex(BreachCorpus.sha1("qwertzqwertz"));
+        Files.write(list, List.of(sha1Hex + ":4711", "plaintextPassword"));
+        Path corpusFile = tempDir.resolve("corpus.bin");
+        new BreachCorpusBuilder(10).build(list, corpusFile);
+
+        BreachCorpus corpus = BreachCorpus.load(corpusFile);
+        assertTrue(corpus.containsPassword("qwertzqwertz"));
+        assertTrue(corpus.containsPassword("plaintextPassword"));
+    }
+
+    @Test
+    void whenBloomFilterFilled_noFalseNegatives() throws IOException {
+        Path list = tempDir.resolve("list.txt");
+        Files.write(list, IntStream.range(0, 5000).mapToObj(i -> "pw" + i).toList());
+        Path corpusFile = tempDir.resolve("corpus.bin");
+        new BreachCorpusBuilder(1000).build(list, corpusFile);
+        BreachedPasswordChecker checker = new BreachedPasswordChecker(corpusFile.toString(), 0.01, Duration.ofDays(1));
+        checker.reloadIfModified();
+
+        assertEquals(5000, checker.corpusSize());
+        assertTrue(IntStream.range(0, 5000).allMatch(i -> checker.isBreached("pw" + i)));
+        assertFalse(checker.isBreached("pw5000"));
+        assertTrue(checker.isBreached("PasswordForJune"));
+        checker.destroy();
+    }
+
+    @Test
+    void whenCorpusFileReplaced_checkerHotReloads() throws IOException {
+        Path list = tempDir.resolve("list.txt");
+        Path corpusFile = tempDir.resolve("corpus.bin");
+        Files.write(list, List.of("first-password"));
+        new BreachCorpusBuilder(10).build(list, corpusFile);
+        BreachedPasswordChecker checker = new BreachedPasswordChecker(corpusFile.toString(), 0.01, Duration.ofDays(1));
+        checker.reloadIfModified();
+        assertTrue(checker.isBreached("first-password"));
+
+        Files.write(list, List.of("second-password", "third-password"));
+        new BreachCorpusBuilder(10).build(list, corpusFile);
+        Files.setLastModifiedTime(corpusFile, FileTime.from(Instant.now().plusSeconds(10)));
+        checker.reloadIfModified();
+
+        assertFalse(checker.isBreached("first-password"));
+        assertTrue(checker.isBreached("third-password"));
+        checker.destroy();
+    }
+
+    @Test
+    void whenNoCorpusFile_loadFails() throws IOException {
+        Path noCorpus = tempDir.resolve("no-corpus.bin");
+        Files.writeString(noCorpus, "just some text, that is no corpus");
+        assertThrows(IOException.class, () -> BreachCorpus.load(noCorpus));
+    }
+}
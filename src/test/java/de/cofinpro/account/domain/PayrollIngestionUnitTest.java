@@ -0,0 +1,102 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.SalaryBulkInserter;
+import de.cofinpro.account.persistence.SalaryReactiveRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PayrollIngestionUnitTest {
+
+    SalaryReactiveRepository salaryRepository;
+    SalaryBulkInserter bulkInserter;
+    PayrollIngestion payrollIngestion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        salaryRepository = mock(SalaryReactiveRepository.class);
+        when(salaryRepository.findRegisteredEmployees(anyCollection()))
+                .thenAnswer(invocation -> Flux.fromIterable((Collection<String>) invocation.getArgument(0)));
+        when(salaryRepository.findAllByEmployeeAndPeriodIn(anyCollection())).thenReturn(Flux.empty());
+        bulkInserter = mock(SalaryBulkInserter.class);
+        when(bulkInserter.stageAll(anyString(), anyList())).thenReturn(Mono.just(1L));
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SalaryUploadValidator uploadValidator;
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            uploadValidator = new SalaryUploadValidator(salaryRepository,
+                    new SpringValidatorAdapter(validatorFactory.getValidator()), 1);
+        }
+        payrollIngestion = new PayrollIngestion(salaryRepository, bulkInserter, uploadValidator,
+                transactionalOperator, mock(ApplicationEventPublisher.class), Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        payrollIngestion.destroy();
+    }
+
+    @Test
+    void whenStagingSwept_StaleUploadsDiscardedButUploadInProgressKept() {
+        when(salaryRepository.discardStaged(anyString())).thenReturn(Mono.just(3L));
+        Sinks.Many<SalaryRecord> salaryRecords = Sinks.many().unicast().onBackpressureBuffer();
+        Disposable ingestion = payrollIngestion.ingest(salaryRecords.asFlux(), PayrollIngestion.CommitMode.ALL)
+                .subscribe();
+        salaryRecords.tryEmitNext(new SalaryRecord("h.w@acme.com", "01-2023", 1000));
+        String activeUpload = stagedUploadId();
+        when(salaryRepository.findUploadsStagedBefore(any())).thenReturn(Flux.just(activeUpload, "stale-upload"));
+
+        assertEquals(3L, payrollIngestion.sweepStaleStaging().block());
+        verify(salaryRepository).discardStaged("stale-upload");
+        verify(salaryRepository, never()).discardStaged(activeUpload);
+
+        ingestion.dispose();
+        verify(salaryRepository).discardStaged(activeUpload);
+        assertEquals(6L, payrollIngestion.sweepStaleStaging().block());
+        verify(salaryRepository, times(2)).discardStaged(activeUpload);
+    }
+
+    @Test
+    void whenDiscardOfCancelledUploadFails_ThenFailureHandledAndUploadLeftToSweep() {
+        when(salaryRepository.discardStaged(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+        Sinks.Many<SalaryRecord> salaryRecords = Sinks.many().unicast().onBackpressureBuffer();
+        Disposable ingestion = payrollIngestion.ingest(salaryRecords.asFlux(), PayrollIngestion.CommitMode.ALL)
+                .subscribe();
+        salaryRecords.tryEmitNext(new SalaryRecord("h.w@acme.com", "01-2023", 1000));
+        String cancelledUpload = stagedUploadId();
+
+        assertDoesNotThrow(ingestion::dispose);
+        verify(salaryRepository).discardStaged(cancelledUpload);
+
+        when(salaryRepository.discardStaged(anyString())).thenReturn(Mono.just(1L));
+        when(salaryRepository.findUploadsStagedBefore(any())).thenReturn(Flux.just(cancelledUpload));
+        assertEquals(1L, payrollIngestion.sweepStaleStaging().block());
+    }
+
+    String stagedUploadId() {
+        ArgumentCaptor<String> uploadId = ArgumentCaptor.forClass(String.class);
+        verify(bulkInserter).stageAll(uploadId.capture(), anyList());
+        return uploadId.getValue();
+    }
+}
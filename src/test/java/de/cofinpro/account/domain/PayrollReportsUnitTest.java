@@ -0,0 +1,60 @@
+package de.cofinpro.account.domain;
+
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollReportsUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+    static final int PERIOD = 2031 * 12 + 1;
+
+    DatabaseClient databaseClient;
+    PayrollReports payrollReports;
+
+    @BeforeEach
+    void setup() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///payroll-reports-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                CREATE TABLE SALARY (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, period INT NOT NULL, salary BIGINT NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL)""").then().block(TIMEOUT);
+        payrollReports = new PayrollReports(databaseClient);
+    }
+
+    @Test
+    void whenTotalExceedsLongRange_ExactTotalAndAverageReported() {
+        insert("a@acme.com", PERIOD, Long.MAX_VALUE);
+        insert("b@acme.com", PERIOD, Long.MAX_VALUE - 1);
+        BigDecimal total = BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.TWO).subtract(BigDecimal.ONE);
+
+        assertEquals(new PeriodReport("01-2031", 2, total, Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MAX_VALUE),
+                payrollReports.periodReport(PERIOD).block(TIMEOUT));
+        assertEquals(List.of(new EmployeeReport("a@acme.com", 1, BigDecimal.valueOf(Long.MAX_VALUE),
+                                Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE),
+                        new EmployeeReport("b@acme.com", 1, BigDecimal.valueOf(Long.MAX_VALUE - 1),
+                                Long.MAX_VALUE - 1, Long.MAX_VALUE - 1, Long.MAX_VALUE - 1)),
+                payrollReports.employeeReports(PERIOD, PERIOD).collectList().block(TIMEOUT));
+    }
+
+    @Test
+    void whenNoSalariesInPeriod_EmptyReport() {
+        assertEquals(new PeriodReport("01-2031", 0, BigDecimal.ZERO, 0, 0, 0),
+                payrollReports.periodReport(PERIOD).block(TIMEOUT));
+    }
+
+    void insert(String email, int period, long salary) {
+        databaseClient.sql("INSERT INTO SALARY (email, period, salary) VALUES ($1, $2, $3)")
+                .bind(0, email).bind(1, period).bind(2, salary)
+                .then().block(TIMEOUT);
+    }
+}
@@ -0,0 +1,39 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Login;
+import de.cofinpro.account.persistence.Salary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalaryResponseUnitTest {
+
+    @Test
+    void whenSalaryRendered_ThenIdenticalToFormatter() {
+        LongStream.concat(LongStream.rangeClosed(-1000, 100_000),
+                        LongStream.of(Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE))
+                .forEach(salary -> assertEquals("%d dollar(s) %02d cent(s)".formatted(salary / 100, salary % 100),
+                        SalaryResponse.getSalaryText(salary)));
+    }
+
+    @Test
+    void whenPeriodRendered_ThenIdenticalToDisplayName() {
+        IntStream.rangeClosed(1000, 9999).forEach(year -> IntStream.rangeClosed(1, 12).forEach(month ->
+                assertEquals(Month.of(month).getDisplayName(TextStyle.FULL, Locale.US) + "-" + year,
+                        SalaryResponse.monthFirst(Salary.periodIndex("%02d-%d".formatted(month, year))))));
+    }
+
+    @Test
+    void whenResponseCreated_ThenLoginAndSalaryRendered() {
+        Login login = Login.builder().name("Jan").lastname("Doe").build();
+        SalaryResponse response = SalaryResponse.fromLoginAndSalary(
+                Salary.builder().period(Salary.periodIndex("12-2021")).monthlySalary(123405).build(), login);
+        assertEquals(new SalaryResponse("Jan", "Doe", "December-2021", "1234 dollar(s) 05 cent(s)"), response);
+    }
+}
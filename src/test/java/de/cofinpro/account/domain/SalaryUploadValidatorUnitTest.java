@@ -0,0 +1,99 @@
+package de.cofinpro.account.domain;
+
+import de.cofinpro.account.persistence.Salary;
+import de.cofinpro.account.persistence.SalaryBatchRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static de.cofinpro.account.configuration.AccountConfiguration.CONCURRENT_CHANGE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.DUPLICATE_RECORDS_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.NO_SUCH_EMPLOYEE_ERRORMSG;
+import static de.cofinpro.account.configuration.AccountConfiguration.RECORD_ALREADY_EXISTS_ERRORMSG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalaryUploadValidatorUnitTest {
+
+    final AtomicInteger employeeQueries = new AtomicInteger();
+    final AtomicInteger salaryQueries = new AtomicInteger();
+    SalaryUploadValidator uploadValidator;
+
+    @BeforeEach
+    void setup() {
+        // mocked, so that the stub does not break with every new fragment method
+        SalaryBatchRepository salaryRepository = mock(SalaryBatchRepository.class);
+        when(salaryRepository.findRegisteredEmployees(anyCollection())).thenAnswer(invocation -> {
+            employeeQueries.incrementAndGet();
+            Collection<String> emails = invocation.getArgument(0);
+            return Flux.fromIterable(emails).filter(email -> email.startsWith("h.w")).map(String::toUpperCase);
+        });
+        when(salaryRepository.findAllByEmployeeAndPeriodIn(anyCollection())).thenAnswer(invocation -> {
+            salaryQueries.incrementAndGet();
+            Collection<Salary> salaries = invocation.getArgument(0);
+            return Flux.fromIterable(salaries).filter(salary -> salary.getPeriod() == 2022 * 12 + 1);
+        });
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            uploadValidator = new SalaryUploadValidator(salaryRepository,
+                    new SpringValidatorAdapter(validatorFactory.getValidator()), 2);
+        }
+    }
+
+    @Test
+    void whenRecordsDiagnosedInChunks_errorsInRecordOrderAndTwoQueriesPerChunk() {
+        List<String> errors = uploadValidator.diagnose(indexed(
+                        new SalaryRecord("h.w@acme.com", "02-2022", 1000),
+                        new SalaryRecord("not.there@acme.com", "02-2022", 1000),
+                        new SalaryRecord("H.W@acme.com", "01-2022", 1000),
+                        new SalaryRecord("h.w@acme.com", "13-2022", 1000),
+                        new SalaryRecord("h.w@acme.com", "03-2022", 1000)))
+                .block();
+
+        assertEquals(List.of("Record 1: " + NO_SUCH_EMPLOYEE_ERRORMSG, "Record 2: " + RECORD_ALREADY_EXISTS_ERRORMSG,
+                "Record 3: Wrong date!"), errors);
+        assertEquals(3, employeeQueries.get());
+        assertEquals(3, salaryQueries.get());
+    }
+
+    @Test
+    void whenOnlyDuplicatesInRecords_everyRepetitionReportedWithIndex() {
+        List<String> errors = uploadValidator.diagnose(indexed(
+                        new SalaryRecord("h.w@acme.com", "02-2022", 1000),
+                        new SalaryRecord("H.W@acme.com", "02-2022", 2000),
+                        new SalaryRecord("h.w@acme.com", "03-2022", 2000),
+                        new SalaryRecord("h.w@ACME.com", "02-2022", 3000),
+                        new SalaryRecord("h.w@acme.com", "03-2022", 4000)))
+                .block();
+
+        assertEquals(List.of("Record 1: " + DUPLICATE_RECORDS_ERRORMSG, "Record 3: " + DUPLICATE_RECORDS_ERRORMSG,
+                "Record 4: " + DUPLICATE_RECORDS_ERRORMSG), errors);
+    }
+
+    @Test
+    void whenNoErrorAndNoDuplicate_concurrentChangeReported() {
+        List<String> errors = uploadValidator.diagnose(indexed(
+                        new SalaryRecord("h.w@acme.com", "02-2022", 1000),
+                        new SalaryRecord("h.w@acme.com", "03-2022", 2000)))
+                .block();
+
+        assertEquals(List.of(CONCURRENT_CHANGE_ERRORMSG), errors);
+    }
+
+    static List<Tuple2<Long, SalaryRecord>> indexed(SalaryRecord... salaryRecords) {
+        return IntStream.range(0, salaryRecords.length)
+                .mapToObj(i -> Tuples.of((long) i, salaryRecords[i]))
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package de.cofinpro.account.persistence;
+
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static de.cofinpro.account.persistence.StagedConflict.Reason.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalaryBatchRepositoryImplUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    DatabaseClient databaseClient;
+    SalaryBatchRepositoryImpl repository;
+
+    @BeforeEach
+    void setup() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///salary-batch-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                CREATE TABLE LOGIN (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) UNIQUE NOT NULL)""").then().block(TIMEOUT);
+        databaseClient.sql("""
+                CREATE TABLE SALARY (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, FOREIGN KEY(email) REFERENCES LOGIN(email),
+                    period INT NOT NULL, salary BIGINT NOT NULL, version BIGINT DEFAULT 0 NOT NULL)""")
+                .then().block(TIMEOUT);
+        databaseClient.sql("CREATE UNIQUE INDEX SALARY_EMAIL_PERIOD ON SALARY (email, period)").then().block(TIMEOUT);
+        databaseClient.sql("""
+                CREATE TABLE SALARY_STAGING (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    upload_id VARCHAR (36) NOT NULL, email VARCHAR_IGNORECASE (64) NOT NULL, period INT NOT NULL,
+                    salary BIGINT NOT NULL, staged_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL)""")
+                .then().block(TIMEOUT);
+        databaseClient.sql("INSERT INTO LOGIN (email) VALUES ('a@acme.com'), ('b@acme.com')").then().block(TIMEOUT);
+        databaseClient.sql("INSERT INTO SALARY (email, period, salary) VALUES ('b@acme.com', 24000, 1000)")
+                .then().block(TIMEOUT);
+        repository = new SalaryBatchRepositoryImpl(databaseClient);
+    }
+
+    @Test
+    void whenStagedRowsConflict_ThenConflictsReportedWithRecordIndexInStagingOrder() {
+        stage("upload", "a@acme.com", 24000);
+        stage("upload", "B@acme.com", 24000);
+        stage("upload", "a@acme.com", 24001);
+        stage("other", "a@acme.com", 24000);
+        stage("upload", "gone@acme.com", 24000);
+        stage("upload", "A@ACME.COM", 24000);
+
+        assertThrows(DataIntegrityViolationException.class, () -> repository.commitStaged("upload").block(TIMEOUT));
+        assertEquals(List.of(new StagedConflict(1, RECORD_EXISTS), new StagedConflict(3, NO_SUCH_EMPLOYEE),
+                        new StagedConflict(4, DUPLICATE)),
+                repository.findStagedConflicts("upload").collectList().block(TIMEOUT));
+    }
+
+    @Test
+    void whenStagedRowsValid_ThenNoConflictsAndCommitted() {
+        stage("upload", "a@acme.com", 24000);
+        stage("upload", "b@acme.com", 24001);
+
+        assertEquals(List.of(), repository.findStagedConflicts("upload").collectList().block(TIMEOUT));
+        assertEquals(2, repository.commitStaged("upload").block(TIMEOUT));
+        assertEquals(0, repository.discardStaged("upload").block(TIMEOUT));
+    }
+
+    @Test
+    void whenUploadsStagedBeforeLimit_ThenFoundOnce() {
+        stage("old", "a@acme.com", 24000);
+        stage("old", "a@acme.com", 24001);
+        stage("new", "a@acme.com", 24000);
+        databaseClient.sql("UPDATE SALARY_STAGING SET staged_at = $1 WHERE upload_id = 'old'")
+                .bind(0, LocalDateTime.now().minusHours(2))
+                .then().block(TIMEOUT);
+
+        assertEquals(List.of("old"), repository.findUploadsStagedBefore(LocalDateTime.now().minusHours(1))
+                .collectList().block(TIMEOUT));
+    }
+
+    void stage(String uploadId, String email, int period) {
+        databaseClient.sql("INSERT INTO SALARY_STAGING (upload_id, email, period, salary) VALUES ($1, $2, $3, 100)")
+                .bind(0, uploadId).bind(1, email).bind(2, period)
+                .then().block(TIMEOUT);
+    }
+}
@@ -0,0 +1,91 @@
+package de.cofinpro.account.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalaryBulkInserterUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+    static final int BATCH_SIZE = 3;
+
+    DatabaseClient databaseClient;
+    SimpleMeterRegistry meterRegistry;
+    SalaryBulkInserter bulkInserter;
+
+    @BeforeEach
+    void setup() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///salary-bulk-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                CREATE TABLE SALARY (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    email VARCHAR_IGNORECASE (64) NOT NULL, period INT NOT NULL, salary BIGINT NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL)""").then().block(TIMEOUT);
+        databaseClient.sql("""
+                CREATE TABLE SALARY_STAGING (id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                    upload_id VARCHAR (36) NOT NULL, email VARCHAR_IGNORECASE (64) NOT NULL, period INT NOT NULL,
+                    salary BIGINT NOT NULL, staged_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL)""")
+                .then().block(TIMEOUT);
+        meterRegistry = new SimpleMeterRegistry();
+        bulkInserter = new SalaryBulkInserter(databaseClient, meterRegistry, BATCH_SIZE);
+    }
+
+    @Test
+    void whenMoreSalariesThanBatchSize_EveryRowInsertedWithItsValues() {
+        List<Salary> salaries = salaries(2 * BATCH_SIZE + 1);
+
+        assertEquals(salaries.size(), bulkInserter.insertAll(salaries).block(TIMEOUT));
+        assertEquals(rows(salaries, null), rows("SELECT email, period, salary, NULL AS upload_id FROM SALARY"));
+        assertEquals(salaries.size(), meterRegistry.get("account.salary.insert.rows").counter().count());
+        assertEquals(3, meterRegistry.get("account.salary.insert.batches").counter().count());
+    }
+
+    @Test
+    void whenSalariesStaged_EveryRowStagedWithUploadIdAndItsValues() {
+        List<Salary> salaries = salaries(BATCH_SIZE + 1);
+
+        assertEquals(salaries.size(), bulkInserter.stageAll("upload", salaries).block(TIMEOUT));
+        assertEquals(rows(salaries, "upload"), rows("SELECT email, period, salary, upload_id FROM SALARY_STAGING"));
+        assertEquals(2, meterRegistry.get("account.salary.insert.batches").counter().count());
+    }
+
+    @Test
+    void whenNoSalaries_NothingInserted() {
+        assertEquals(0, bulkInserter.insertAll(List.of()).block(TIMEOUT));
+        assertEquals(0, meterRegistry.get("account.salary.insert.batches").counter().count());
+    }
+
+    static List<Salary> salaries(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Salary.builder().email("user" + i + "@acme.com").period(24000 + i)
+                        .monthlySalary(1000L + i).build())
+                .toList();
+    }
+
+    static List<List<Object>> rows(List<Salary> salaries, String uploadId) {
+        return salaries.stream()
+                .map(salary -> Arrays.<Object>asList(salary.getEmail(), salary.getPeriod(),
+                        salary.getMonthlySalary(), uploadId))
+                .toList();
+    }
+
+    List<List<Object>> rows(String select) {
+        return databaseClient.sql(select + " ORDER BY id")
+                .map(row -> Arrays.<Object>asList(row.get("email", String.class),
+                        row.get("period", Integer.class), row.get("salary", Long.class),
+                        row.get("upload_id", String.class)))
+                .all()
+                .collectList()
+                .block(TIMEOUT);
+    }
+}
@@ -0,0 +1,89 @@
+package de.cofinpro.account.ratelimit;
+
+import de.cofinpro.account.ratelimit.RateLimitProperties.Rule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterUnitTest {
+
+    final AtomicLong nanoTime = new AtomicLong();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final RateLimitFilter filter = new RateLimitFilter(new RateLimitProperties(true, 1000, Duration.ofMinutes(10),
+            List.of(new Rule("/api/auth/**", 2, Duration.ofMinutes(1)),
+                    new Rule("/api/empl/**", 5, Duration.ofMinutes(1)))),
+            meterRegistry, nanoTime::get);
+    final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Test
+    void whenBurstExceeded_429WithRetryAfter() {
+        filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain).block();
+        filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain).block();
+        MockServerWebExchange limited = exchange("/api/auth/changepass", "10.0.0.1", null);
+        StepVerifier.create(filter.filter(limited, chain))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException exception
+                        && exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+                .verify();
+        assertEquals("30", limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.counter("account.rate-limit.rejected", "rule", "/api/auth/**",
+                "key", "address").count());
+        StepVerifier.create(filter.filter(exchange("/api/empl/payment", "10.0.0.1", null), chain)).verifyComplete();
+        StepVerifier.create(filter.filter(exchange("/api/auth/changepass", "10.0.0.2", null), chain)).verifyComplete();
+    }
+
+    @Test
+    void whenTokensRefilled_requestsPassAgain() {
+        filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain).block();
+        filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain).block();
+        nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+        StepVerifier.create(filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain)).verifyComplete();
+        StepVerifier.create(filter.filter(exchange("/api/auth/changepass", "10.0.0.1", null), chain))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    void whenSameUserFromManyAddresses_userBucketLimits() {
+        for (int i = 0; i < 5; i++) {
+            filter.filter(exchange("/api/empl/payment", "10.0.1." + i, "hw@acme.com"), chain).block();
+        }
+        StepVerifier.create(filter.filter(exchange("/api/empl/payment", "10.0.1.9", "HW@acme.com"), chain))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        StepVerifier.create(filter.filter(exchange("/api/empl/payment", "10.0.1.9", "jw@acme.com"), chain))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenNoRuleMatches_requestPasses() {
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(filter.filter(exchange("/actuator/health", "10.0.0.1", null), chain)).verifyComplete();
+        }
+    }
+
+    private static MockServerWebExchange exchange(String path, String address, String user) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path)
+                .remoteAddress(new InetSocketAddress(address, 54321));
+        if (user != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                    .encodeToString((user + ":secret").getBytes(StandardCharsets.UTF_8)));
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
@@ -0,0 +1,61 @@
+package de.cofinpro.account.security;
+
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenServiceUnitTest {
+
+    static final Authentication USER_AUTHENTICATION = UsernamePasswordAuthenticationToken.authenticated(
+            "hw@acme.com", null, AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_AUDITOR"));
+
+    final AccessTokenService tokenService = new AccessTokenService(Duration.ofMinutes(5), Clock.systemUTC());
+
+    @Test
+    void whenTokenIssued_verifyReturnsEmailAndRoles() {
+        Optional<Authentication> verified = tokenService.verify(tokenService.issue(USER_AUTHENTICATION));
+        assertTrue(verified.isPresent());
+        assertEquals("hw@acme.com", verified.get().getName());
+        assertTrue(verified.get().isAuthenticated());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_AUDITOR"), verified.get().getAuthorities());
+    }
+
+    @Test
+    void whenTokenTampered_verifyFails() {
+        String token = tokenService.issue(USER_AUTHENTICATION);
+        String otherToken = tokenService.issue(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@acme.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMINISTRATOR")));
+        String forged = otherToken.substring(0, otherToken.indexOf('.')) + token.substring(token.indexOf('.'));
+        assertTrue(tokenService.verify(forged).isEmpty());
+        assertTrue(tokenService.verify("no-token").isEmpty());
+        assertTrue(tokenService.verify("%%%.%%%").isEmpty());
+    }
+
+    @Test
+    void whenTokenOfOtherInstance_verifyFails() {
+        AccessTokenService otherService = new AccessTokenService(Duration.ofMinutes(5), Clock.systemUTC());
+        assertTrue(tokenService.verify(otherService.issue(USER_AUTHENTICATION)).isEmpty());
+    }
+
+    @Test
+    void whenLoginChanged_tokenRevoked() {
+        String token = tokenService.issue(USER_AUTHENTICATION);
+        tokenService.onLoginChanged(new LoginChangedEvent("HW@acme.com"));
+        assertTrue(tokenService.verify(token).isEmpty());
+        assertTrue(tokenService.verify(tokenService.issue(USER_AUTHENTICATION)).isPresent());
+    }
+
+    @Test
+    void whenTokenExpired_verifyFails() {
+        AccessTokenService expiredTokenService = new AccessTokenService(Duration.ofSeconds(-1), Clock.systemUTC());
+        assertTrue(expiredTokenService.verify(expiredTokenService.issue(USER_AUTHENTICATION)).isEmpty());
+    }
+}
@@ -0,0 +1,123 @@
+package de.cofinpro.account.security;
+
+import de.cofinpro.account.audit.BruteForceProtector;
+import de.cofinpro.account.breach.BreachedPasswordChecker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static de.cofinpro.account.configuration.AuthenticationConfiguration.SERVER_BUSY_ERRORMSG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingExecutorUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PasswordEncoder passwordEncoder;
+    PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setup() {
+        passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            return "encoded";
+        });
+        executor = new PasswordHashingExecutor(passwordEncoder, meterRegistry, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void whenPoolSaturated_ThenRejectedTaskFailsWith503AndIsCounted() throws Exception {
+        CompletableFuture<String> running = saturate();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> executor.encode("rejected").block(TIMEOUT));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(SERVER_BUSY_ERRORMSG, exception.getReason());
+        assertEquals(1, meterRegistry.get("account.crypto.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("encoded", running.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void whenMappingRejection_OnlyRejectedExecutionBecomes503() {
+        Throwable mapped = PasswordHashingExecutor.mapRejection(new RejectedExecutionException("full"));
+        assertInstanceOf(ResponseStatusException.class, mapped);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) mapped).getStatusCode());
+        IllegalStateException other = new IllegalStateException("other");
+        assertSame(other, PasswordHashingExecutor.mapRejection(other));
+    }
+
+    @Test
+    void whenAuthenticatingOnSaturatedPool_Then503PassesAuthenticationManagerUnchanged() throws Exception {
+        ReactiveUserDetailsService userDetailsService = mock(ReactiveUserDetailsService.class);
+        when(userDetailsService.findByUsername(anyString())).thenReturn(Mono.just(User.withUsername("hw@acme.com")
+                .password("encoded").roles("USER").build()));
+        AccountReactiveAuthenticationManager authenticationManager = authenticationManager(userDetailsService);
+        saturate();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(
+                        "hw@acme.com", "123456789012")).block(TIMEOUT));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(SERVER_BUSY_ERRORMSG, exception.getReason());
+    }
+
+    @Test
+    void whenAuthenticationFailsOtherwise_ThenBadCredentials() {
+        ReactiveUserDetailsService userDetailsService = mock(ReactiveUserDetailsService.class);
+        when(userDetailsService.findByUsername(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+        AccountReactiveAuthenticationManager authenticationManager = authenticationManager(userDetailsService);
+
+        AccountBadCredentialsException exception = assertThrows(AccountBadCredentialsException.class,
+                () -> authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(
+                        "hw@acme.com", "123456789012")).block(TIMEOUT));
+        assertEquals("down", exception.getMessage());
+    }
+
+    /**
+     * occupy the only crypto worker and fill the queue of one.
+     * @return future of the running task - completed after release
+     */
+    CompletableFuture<String> saturate() throws InterruptedException {
+        CompletableFuture<String> running = executor.encode("running").toFuture();
+        assertTrue(started.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        executor.encode("queued").subscribe();
+        return running;
+    }
+
+    AccountReactiveAuthenticationManager authenticationManager(ReactiveUserDetailsService userDetailsService) {
+        return new AccountReactiveAuthenticationManager(userDetailsService, passwordEncoder,
+                mock(BruteForceProtector.class), mock(VerifiedCredentialCache.class), executor,
+                mock(BreachedPasswordChecker.class));
+    }
+}
@@ -0,0 +1,113 @@
+package de.cofinpro.account.security;
+
+import de.cofinpro.account.audit.BruteForceProtector;
+import de.cofinpro.account.breach.BreachedPasswordChecker;
+import de.cofinpro.account.persistence.LoginChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class VerifiedCredentialCacheUnitTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+    static final Authentication USER_AUTHENTICATION = UsernamePasswordAuthenticationToken.authenticated(
+            "hw@acme.com", null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+    final VerifiedCredentialCache credentialCache = new VerifiedCredentialCache(new SimpleMeterRegistry(), true,
+            100, Duration.ofMinutes(1));
+
+    @Test
+    void whenVerifiedCredentialsPut_SameCredentialsAnsweredFromCache() {
+        credentialCache.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, credentialCache.generation());
+
+        Optional<Authentication> cached = credentialCache.get("HW@acme.com", "useruseruser");
+        assertTrue(cached.isPresent());
+        assertTrue(cached.get().isAuthenticated());
+        assertEquals("hw@acme.com", cached.get().getName());
+        assertEquals(USER_AUTHENTICATION.getAuthorities(), cached.get().getAuthorities());
+    }
+
+    @Test
+    void whenWrongPassword_NeverAnsweredFromCache() {
+        credentialCache.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, credentialCache.generation());
+
+        assertTrue(credentialCache.get("hw@acme.com", "useruseruseR").isEmpty());
+        assertTrue(credentialCache.get("hw@acme.com", "").isEmpty());
+        assertTrue(credentialCache.get("other@acme.com", "useruseruser").isEmpty());
+    }
+
+    @Test
+    void whenLoginChanged_CachedCredentialsInvalidatedAndGenerationIncremented() {
+        long generation = credentialCache.generation();
+        credentialCache.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, generation);
+
+        credentialCache.onLoginChanged(new LoginChangedEvent("HW@acme.com"));
+        assertTrue(credentialCache.get("hw@acme.com", "useruseruser").isEmpty());
+        assertEquals(generation + 1, credentialCache.generation());
+    }
+
+    @Test
+    void whenLoginChangedDuringVerification_StaleVerificationNotCached() {
+        long generation = credentialCache.generation();
+        // e.g. password change or lock committed, while the old password was checked by BCrypt
+        credentialCache.onLoginChanged(new LoginChangedEvent("hw@acme.com"));
+        credentialCache.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, generation);
+        assertTrue(credentialCache.get("hw@acme.com", "useruseruser").isEmpty());
+
+        credentialCache.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, credentialCache.generation());
+        assertTrue(credentialCache.get("hw@acme.com", "useruseruser").isPresent());
+    }
+
+    @Test
+    void whenDisabled_NothingCached() {
+        VerifiedCredentialCache disabled = new VerifiedCredentialCache(new SimpleMeterRegistry(), false, 100,
+                Duration.ofMinutes(1));
+        disabled.put("hw@acme.com", "useruseruser", USER_AUTHENTICATION, disabled.generation());
+        assertTrue(disabled.get("hw@acme.com", "useruseruser").isEmpty());
+    }
+
+    @Test
+    void whenAuthenticatedWithWrongPasswordAfterCachedLogin_ThenVerifiedAgainAndRejected() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.matches(any(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0).toString().equals(invocation.getArgument(1)));
+        ReactiveUserDetailsService userDetailsService = mock(ReactiveUserDetailsService.class);
+        when(userDetailsService.findByUsername(anyString())).thenReturn(Mono.just(User.withUsername("hw@acme.com")
+                .password("useruseruser").roles("USER").build()));
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(passwordEncoder, new SimpleMeterRegistry(),
+                1, 16);
+        try {
+            AccountReactiveAuthenticationManager authenticationManager = new AccountReactiveAuthenticationManager(
+                    userDetailsService, passwordEncoder, mock(BruteForceProtector.class), credentialCache, executor,
+                    mock(BreachedPasswordChecker.class));
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("hw@acme.com",
+                    "useruseruser")).block(TIMEOUT);
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("hw@acme.com",
+                    "useruseruser")).block(TIMEOUT);
+            verify(userDetailsService, times(1)).findByUsername("hw@acme.com");
+
+            assertThrows(BadCredentialsException.class, () -> authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated("hw@acme.com", "wrongwrongwrong"))
+                    .block(TIMEOUT));
+            verify(userDetailsService, times(2)).findByUsername("hw@acme.com");
+            verify(passwordEncoder).matches("wrongwrongwrong", "useruseruser");
+        } finally {
+            executor.destroy();
+        }
+    }
+}
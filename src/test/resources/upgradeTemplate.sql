@@ -0,0 +1,24 @@
+ALTER TABLE SALARY ALTER COLUMN period SET DATA TYPE INT;
+ALTER TABLE SALARY ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS SALARY_EMAIL_PERIOD ON SALARY (email, period);
+CREATE INDEX IF NOT EXISTS SALARY_PERIOD_SALARY ON SALARY (period, salary);
+CREATE INDEX IF NOT EXISTS AUDIT_ACTION_ID ON AUDIT (action, id);
+CREATE INDEX IF NOT EXISTS AUDIT_SUBJECT_ID ON AUDIT (subject, id);
+CREATE INDEX IF NOT EXISTS AUDIT_PATH_ID ON AUDIT (path, id);
+CREATE INDEX IF NOT EXISTS AUDIT_DATE_ID ON AUDIT (date, id);
+CREATE TABLE IF NOT EXISTS AUDIT_STATS (
+                      day DATE NOT NULL,
+                      action VARCHAR_IGNORECASE (20) NOT NULL,
+                      subject VARCHAR_IGNORECASE (64) NOT NULL,
+                      events BIGINT NOT NULL,
+                      PRIMARY KEY (day, action, subject)
+);
+CREATE TABLE IF NOT EXISTS SALARY_STAGING (
+                      id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                      upload_id VARCHAR (36) NOT NULL,
+                      email VARCHAR_IGNORECASE (64) NOT NULL,
+                      period INT NOT NULL,
+                      salary BIGINT NOT NULL,
+                      staged_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS SALARY_STAGING_UPLOAD ON SALARY_STAGING (upload_id, email, period);